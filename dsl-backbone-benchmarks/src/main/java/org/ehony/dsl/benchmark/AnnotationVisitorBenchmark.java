@@ -0,0 +1,53 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark;
+
+import org.ehony.dsl.NestedTagProcessor;
+import org.ehony.dsl.annotation.AnnotationVisitor;
+import org.ehony.dsl.api.ContainerTag;
+import org.ehony.dsl.api.NestedTag;
+import org.ehony.dsl.benchmark.model.Car;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NestedTag} processing which restores parent-child relations after unmarshalling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationVisitorBenchmark
+{
+
+    private AnnotationVisitor<ContainerTag> visitor;
+    private Car car;
+
+    @Setup
+    public void setUp() {
+        visitor = new AnnotationVisitor<>();
+        visitor.bindProcessor(NestedTag.class, new NestedTagProcessor());
+        car = new Car().id("my-car").engine().gears(5).end();
+    }
+
+    @Benchmark
+    public Car process() {
+        visitor.process(car);
+        return car;
+    }
+
+    @Benchmark
+    public AnnotationVisitor<ContainerTag> bindAndProcess() {
+        AnnotationVisitor<ContainerTag> visitor = new AnnotationVisitor<>();
+        visitor.bindProcessor(NestedTag.class, new NestedTagProcessor());
+        visitor.process(car);
+        return visitor;
+    }
+}
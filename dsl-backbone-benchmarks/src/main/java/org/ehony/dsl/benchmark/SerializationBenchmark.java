@@ -0,0 +1,142 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
+import org.ehony.dsl.benchmark.model.Node;
+import org.ehony.dsl.binding.TagCodec;
+import org.ehony.dsl.jackson.TagModule;
+import org.ehony.dsl.stax.TagReader;
+import org.ehony.dsl.stax.TagWriter;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.bind.*;
+import javax.xml.stream.XMLStreamException;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JAXB, StAX, Jackson and binary round trips of whole tag trees.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark
+{
+
+    @Param({"10x1", "1000x1", "100x2", "10x4"})
+    public String shape;
+
+    private Node tree;
+    private Marshaller marshaller;
+    private Unmarshaller unmarshaller;
+    private TagReader reader;
+    private TagWriter writer;
+    private ObjectMapper mapper;
+    private ObjectMapper tagMapper;
+    private byte[] xml;
+    private byte[] json;
+    private TagCodec codec;
+    private ByteBuffer binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        tree = Shape.parse(shape).build();
+
+        JAXBContext context = JAXBContext.newInstance(Node.class);
+        marshaller = context.createMarshaller();
+        unmarshaller = context.createUnmarshaller();
+
+        reader = new TagReader(Node.class);
+        writer = new TagWriter();
+
+        mapper = new ObjectMapper();
+        mapper.registerModule(new JaxbAnnotationModule());
+        mapper.setAnnotationIntrospector(new JaxbAnnotationIntrospector(TypeFactory.defaultInstance()));
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        // Default Tag.getTagName() is serialized but cannot be read back.
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        tagMapper = new ObjectMapper().registerModule(new TagModule());
+
+        codec = new TagCodec();
+        binary = codec.encode(tree);
+
+        xml = writeXml();
+        json = writeJson();
+    }
+
+    @Benchmark
+    public byte[] writeXml() throws JAXBException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        marshaller.marshal(tree, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object readXml() throws JAXBException {
+        return unmarshaller.unmarshal(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Object roundTripXml() throws JAXBException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        marshaller.marshal(tree, out);
+        return unmarshaller.unmarshal(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Benchmark
+    public byte[] writeStax() throws XMLStreamException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        writer.write(tree, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object readStax() throws XMLStreamException {
+        return reader.read(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return mapper.writeValueAsBytes(tree);
+    }
+
+    @Benchmark
+    public Node readJson() throws IOException {
+        return mapper.readValue(json, Node.class);
+    }
+
+    @Benchmark
+    public Node readJsonTagModule() throws IOException {
+        return tagMapper.readValue(json, Node.class);
+    }
+
+    @Benchmark
+    public Node roundTripJson() throws IOException {
+        return mapper.readValue(mapper.writeValueAsBytes(tree), Node.class);
+    }
+
+    @Benchmark
+    public ByteBuffer writeBinary() {
+        return codec.encode(tree);
+    }
+
+    @Benchmark
+    public Object readBinary() throws IOException {
+        return codec.decode(binary.duplicate());
+    }
+}
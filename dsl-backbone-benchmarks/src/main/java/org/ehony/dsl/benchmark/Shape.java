@@ -0,0 +1,52 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark;
+
+import org.ehony.dsl.benchmark.model.Node;
+
+/**
+ * Shape of a generated tag tree in <code>width x depth</code> notation,
+ * ex. <code>100x2</code> describes root with 100 children each having 100 children.
+ */
+final class Shape
+{
+
+    final int width;
+    final int depth;
+
+    private Shape(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+    }
+
+    static Shape parse(String shape) {
+        int i = shape.indexOf('x');
+        if (i < 0) {
+            throw new IllegalArgumentException("Shape in 'width x depth' format expected: " + shape);
+        }
+        return new Shape(Integer.parseInt(shape.substring(0, i).trim()), Integer.parseInt(shape.substring(i + 1).trim()));
+    }
+
+    /**
+     * Build new tree of {@link Node} tags with fluent API.
+     * <p>Nodes have unique identifiers, since JAXB-aware readers treat them as object identities.</p>
+     */
+    Node build() {
+        Node root = new Node().id("root");
+        populate(root, depth, 0);
+        return root;
+    }
+
+    private int populate(Node node, int depth, int id) {
+        if (depth > 0) {
+            for (int i = 0; i < width; i++) {
+                id = populate(node.node().id("n" + id).weight(i), depth - 1, id + 1);
+            }
+        }
+        return id;
+    }
+}
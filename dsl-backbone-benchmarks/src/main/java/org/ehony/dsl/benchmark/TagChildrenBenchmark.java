@@ -0,0 +1,133 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark;
+
+import org.ehony.dsl.benchmark.model.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mutations of container children and parent reassignment.
+ * <p>Each invocation operates on a freshly populated container of given size,
+ * so results are reported in operations per container.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagChildrenBenchmark
+{
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private Node container;
+    private Node other;
+    private Node[] nodes;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        container = new Node();
+        other = new Node();
+        nodes = new Node[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = container.node();
+        }
+    }
+
+    @Benchmark
+    public Node append() {
+        Node node = new Node();
+        for (int i = 0; i < size; i++) {
+            node.appendChild(new Node());
+        }
+        return node;
+    }
+
+    @Benchmark
+    public Node insertFirst() {
+        Node node = new Node();
+        List<Node> children = node.getNodes();
+        for (int i = 0; i < size; i++) {
+            children.add(0, new Node());
+        }
+        return node;
+    }
+
+    @Benchmark
+    public Node moveToEnd() {
+        for (Node node : nodes) {
+            container.appendChild(node);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public Node replace() {
+        List<Node> children = container.getNodes();
+        for (int i = 0; i < size; i++) {
+            children.set(i, new Node());
+        }
+        return container;
+    }
+
+    @Benchmark
+    public Node removeLast() {
+        List<Node> children = container.getNodes();
+        for (int i = size - 1; i >= 0; i--) {
+            children.remove(i);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public Node removeFirst() {
+        List<Node> children = container.getNodes();
+        for (int i = 0; i < size; i++) {
+            children.remove(0);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public Node removeByValue() {
+        List<Node> children = container.getNodes();
+        for (int i = size - 1; i >= 0; i--) {
+            children.remove(nodes[i]);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public Node removeByValueForward() {
+        List<Node> children = container.getNodes();
+        for (Node node : nodes) {
+            children.remove(node);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public Node reparent() {
+        for (int i = size - 1; i >= 0; i--) {
+            nodes[i].setParentTag(other);
+        }
+        return other;
+    }
+
+    @Benchmark
+    public Node reparentForward() {
+        for (Node node : nodes) {
+            node.setParentTag(other);
+        }
+        return other;
+    }
+}
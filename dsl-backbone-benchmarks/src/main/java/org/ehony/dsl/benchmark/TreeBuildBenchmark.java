@@ -0,0 +1,53 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark;
+
+import org.ehony.dsl.benchmark.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fluent construction of tag trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBuildBenchmark
+{
+
+    @Param({"10x1", "1000x1", "100x2", "10x4"})
+    public String shape;
+
+    private Shape tree;
+
+    @Setup
+    public void setUp() {
+        tree = Shape.parse(shape);
+    }
+
+    @Benchmark
+    public Node buildTree() {
+        return tree.build();
+    }
+
+    @Benchmark
+    public Car buildCar() {
+        return new Car()
+                .id("my-car")
+                .brand("Porsche")
+                .engine()
+                    .id("M28.01")
+                    .gears(5)
+                    .attribute("http://ehony.org/", "maintenance-year", "2014")
+                    .attribute("petrol", "E95")
+                .end();
+    }
+}
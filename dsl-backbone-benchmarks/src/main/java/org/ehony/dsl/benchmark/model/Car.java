@@ -0,0 +1,35 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark.model;
+
+import org.ehony.dsl.ContainerBaseTag;
+import org.ehony.dsl.api.ContainerTag;
+import org.ehony.dsl.api.NestedTag;
+
+import javax.xml.bind.annotation.*;
+
+@XmlRootElement
+public class Car extends ContainerBaseTag<Car, ContainerTag>
+{
+
+    @XmlAttribute
+    public String brand;
+    @NestedTag
+    public Engine engine;
+
+    public Car brand(String brand) {
+        this.brand = brand;
+        return this;
+    }
+
+    public Engine engine() {
+        if (engine == null) {
+            engine = appendChild(new Engine());
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark.model;
+
+import org.ehony.dsl.BaseTag;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+public class Engine extends BaseTag<Engine, Car>
+{
+
+    @XmlAttribute
+    public Integer gears;
+
+    public Engine gears(int gears) {
+        this.gears = gears;
+        return this;
+    }
+}
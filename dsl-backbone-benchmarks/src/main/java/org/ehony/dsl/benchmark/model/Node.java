@@ -0,0 +1,45 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.benchmark.model;
+
+import org.ehony.dsl.ContainerBaseTag;
+
+import javax.xml.bind.annotation.*;
+import java.util.List;
+
+/**
+ * Generic container tag used to build trees of arbitrary width and depth.
+ * <p>Children are exposed to JAXB and Jackson via {@link #getNodes()} which is
+ * backed by container children, so unmarshalled trees have parents set
+ * without an extra annotation processing pass.</p>
+ */
+@XmlRootElement
+public class Node extends ContainerBaseTag<Node, Node>
+{
+
+    @XmlAttribute
+    public Integer weight;
+
+    @XmlElement(name = "node")
+    @SuppressWarnings("unchecked")
+    public List<Node> getNodes() {
+        return (List) getChildren();
+    }
+
+    public Node weight(int weight) {
+        this.weight = weight;
+        return this;
+    }
+
+    /**
+     * Append new child node.
+     * @return Created child.
+     */
+    public Node node() {
+        return appendChild(new Node());
+    }
+}
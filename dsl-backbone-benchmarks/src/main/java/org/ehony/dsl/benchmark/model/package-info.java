@@ -0,0 +1,10 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+@XmlSchema(namespace = "http://ehony.org/benchmark/", elementFormDefault = XmlNsForm.QUALIFIED)
+package org.ehony.dsl.benchmark.model;
+
+import javax.xml.bind.annotation.*;
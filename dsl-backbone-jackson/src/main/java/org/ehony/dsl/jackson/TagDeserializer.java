@@ -0,0 +1,175 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.jackson;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import org.ehony.dsl.annotation.Accessor;
+import org.ehony.dsl.api.*;
+import org.ehony.dsl.binding.*;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Deserializes tags of single class from JSON using {@link TagBinding} metadata derived from JAXB annotations.
+ * <p>JSON properties are matched against local names of bound attributes and elements, text content
+ * is read from <code>value</code> property. Entries of <code>customAttributes</code> object and
+ * properties named in <code>{namespace}local</code> notation are put to
+ * {@link Tolerant#getCustomAttributes() custom attributes}, {@link Tag#getTagName() tag name} is
+ * ignored. Tags referenced by {@link NestedTag} members are appended to their containers as soon
+ * as they are read.</p>
+ *
+ * @see TagModule
+ */
+public class TagDeserializer
+        extends StdDeserializer<Object>
+        implements ResolvableDeserializer
+{
+
+    static final String CUSTOM_ATTRIBUTES = "customAttributes";
+    static final String VALUE = "value";
+    static final String TAG_NAME = "tagName";
+
+    private final TagBinding binding;
+    private final Map<String, PropertyBinding> properties = new HashMap<>();
+    private final Map<PropertyBinding, JsonDeserializer<Object>> deserializers = new IdentityHashMap<>();
+
+    /**
+     * Create deserializer of given tag class.
+     * @param binding binding of tag class.
+     */
+    public TagDeserializer(TagBinding binding) {
+        super(binding.getType());
+        this.binding = binding;
+        for (PropertyBinding property : binding.getAttributes()) {
+            addProperty(property.getName().getLocalPart(), property);
+        }
+        for (PropertyBinding property : binding.getElements()) {
+            addProperty(property.getName().getLocalPart(), property);
+        }
+        if (binding.getValue() != null) {
+            addProperty(VALUE, binding.getValue());
+        }
+    }
+
+    /**
+     * JSON keys are local names only, so properties which differ by kind or namespace cannot share them.
+     */
+    private void addProperty(String name, PropertyBinding property) {
+        PropertyBinding previous = properties.put(name, property);
+        if (previous != null) {
+            throw new IllegalArgumentException("Properties " + previous.getName() + " and " + property.getName()
+                    + " of " + binding.getType().getName() + " share JSON key: " + name);
+        }
+    }
+
+    @Override
+    public boolean isCachable() {
+        return true;
+    }
+
+    /**
+     * Look up deserializers of nested tags once, since each lookup introspects class annotations.
+     */
+    @Override
+    public void resolve(DeserializationContext context) throws JsonMappingException {
+        for (PropertyBinding property : properties.values()) {
+            if (!property.isSimple()) {
+                deserializers.put(property, context.findRootValueDeserializer(context.constructType(property.getType())));
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object deserialize(JsonParser p, DeserializationContext context) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            throw context.mappingException(handledType(), token);
+        }
+        Object tag = binding.newInstance();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String name = p.getCurrentName();
+            token = p.nextToken();
+            PropertyBinding property = properties.get(name);
+            if (property != null) {
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if (property.isCollection() && token == JsonToken.START_ARRAY) {
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        readProperty(p, context, property, tag);
+                    }
+                } else {
+                    readProperty(p, context, property, tag);
+                }
+            } else if (CUSTOM_ATTRIBUTES.equals(name) && token == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = p.getCurrentName();
+                    p.nextToken();
+                    putCustomAttribute(p, context, tag, key);
+                }
+            } else if (name.startsWith("{")) {
+                putCustomAttribute(p, context, tag, name);
+            } else if (TAG_NAME.equals(name)) {
+                // Tag name is derived from tag class.
+                p.skipChildren();
+            } else {
+                handleUnknownProperty(p, context, tag, name);
+            }
+        }
+        for (Accessor accessor : binding.getNestedTags()) {
+            Tag child = (Tag) accessor.get(tag);
+            if (child != null && child.getParentTag() != tag) {
+                ((ContainerTag) tag).appendChild(child);
+            }
+        }
+        return tag;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readProperty(JsonParser p, DeserializationContext context, PropertyBinding property, Object tag) throws IOException {
+        Object value;
+        if (property.isSimple()) {
+            if (!p.getCurrentToken().isScalarValue()) {
+                throw context.mappingException(property.getType(), p.getCurrentToken());
+            }
+            try {
+                value = property.parse(p.getText());
+            } catch (IllegalArgumentException e) {
+                throw new JsonMappingException(e.getMessage(), p.getCurrentLocation(), e);
+            }
+        } else {
+            value = deserializers.get(property).deserialize(p, context);
+        }
+        if (value == null) {
+            return;
+        }
+        property.set(tag, value);
+        if (property.isNested()) {
+            ((ContainerTag) tag).appendChild((Tag) value);
+        }
+    }
+
+    private void putCustomAttribute(JsonParser p, DeserializationContext context, Object tag, String name) throws IOException {
+        Map<QName, Object> attributes = binding.getCustomAttributes(tag);
+        if (attributes == null) {
+            handleUnknownProperty(p, context, tag, name);
+        } else if (!p.getCurrentToken().isScalarValue()) {
+            throw context.mappingException("Scalar value of custom attribute expected: " + name);
+        } else if (p.getCurrentToken() != JsonToken.VALUE_NULL) {
+            attributes.put(QName.valueOf(name), p.getText());
+        }
+    }
+}
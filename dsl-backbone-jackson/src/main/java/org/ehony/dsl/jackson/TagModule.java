@@ -0,0 +1,61 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.jackson;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import org.ehony.dsl.api.Tag;
+import org.ehony.dsl.binding.TagBinding;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * Jackson module which reads concrete {@link Tag} classes with {@link TagDeserializer}.
+ * <p>Trees read by module have parent tags set and nested tags wired, so unlike reading with
+ * <code>JaxbAnnotationIntrospector</code> no {@link org.ehony.dsl.NestedTagProcessor} pass is
+ * required. JSON produced by <code>JaxbAnnotationIntrospector</code> is supported.</p>
+ * <pre>
+ * ObjectMapper mapper = new ObjectMapper().registerModule(new TagModule());
+ * Car car = mapper.readValue(json, Car.class);
+ * </pre>
+ */
+public class TagModule extends Module
+{
+
+    @Override
+    public String getModuleName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public Version version() {
+        return Version.unknownVersion();
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        context.addDeserializers(new Deserializers.Base() {
+
+            @Override
+            public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config, BeanDescription description) {
+                Class<?> c = type.getRawClass();
+                if (!Tag.class.isAssignableFrom(c) || c.isInterface() || Modifier.isAbstract(c.getModifiers())) {
+                    return null;
+                }
+                TagBinding binding;
+                try {
+                    binding = TagBinding.of(c);
+                } catch (IllegalArgumentException e) {
+                    // Unsupported JAXB mapping, default bean deserializer is used.
+                    return null;
+                }
+                return new TagDeserializer(binding);
+            }
+        });
+    }
+}
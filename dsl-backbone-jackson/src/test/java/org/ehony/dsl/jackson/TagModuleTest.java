@@ -0,0 +1,103 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.jackson;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import org.ehony.dsl.ContainerBaseTag;
+import org.ehony.dsl.binding.TagBinding;
+import org.example.Car;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.bind.annotation.*;
+import javax.xml.namespace.QName;
+import java.util.*;
+
+import static org.example.Brand.Porsche;
+import static org.junit.Assert.*;
+
+public class TagModuleTest
+{
+
+    private Car car;
+    private ObjectMapper mapper = new ObjectMapper().registerModule(new TagModule());
+
+    @Before
+    public void before() throws Exception {
+        car = new Car()
+                .id("my-car")
+                .brand(Porsche)
+                .engine()
+                    .id("M28.01")
+                    .gears(5)
+                    .attribute("http://ehony.org/", "maintenance-year", "2014")
+                    .attribute("petrol", "E95")
+                .end();
+    }
+
+    @Test
+    public void testReadJson() throws Exception {
+        Car observed = mapper.readValue(Car.class.getResourceAsStream("/car.json"), Car.class);
+        assertEquals(car.toString(), observed.toString());
+        assertSame(observed, observed.engine.getParentTag());
+        assertEquals("2014", observed.engine.getCustomAttributes().get(new QName("http://ehony.org/", "maintenance-year")));
+    }
+
+    @Test
+    public void testReadJaxbJson() throws Exception {
+        ObjectMapper writer = new ObjectMapper();
+        writer.setAnnotationIntrospector(new JaxbAnnotationIntrospector(TypeFactory.defaultInstance()));
+        Car observed = mapper.readValue(writer.writeValueAsBytes(car), Car.class);
+        assertEquals(car.toString(), observed.toString());
+    }
+
+    @Test
+    public void testQualifiedKeys() throws Exception {
+        Car observed = mapper.readValue("{\"id\": \"a\", \"{http://ehony.org/}color\": \"red\"}", Car.class);
+        assertEquals("red", observed.getCustomAttributes().get(new QName("http://ehony.org/", "color")));
+    }
+
+    @Test
+    public void testUnsupportedMapping() throws Exception {
+        Crate observed = mapper.readValue("{\"id\": \"my-crate\"}", Crate.class);
+        assertEquals("my-crate", observed.getId());
+    }
+
+    public static class Crate extends ContainerBaseTag<Crate, Crate>
+    {
+
+        @XmlAnyElement
+        public List<Object> cargo = new ArrayList<>();
+    }
+
+    @Test
+    public void testAmbiguousKey() throws Exception {
+        try {
+            new TagDeserializer(TagBinding.of(Box.class));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("share JSON key: size"));
+        }
+    }
+
+    public static class Box extends ContainerBaseTag<Box, Box>
+    {
+
+        @XmlAttribute
+        public Integer size;
+        @XmlElement(name = "size")
+        public Integer volume;
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testUnknownProperty() throws Exception {
+        mapper.readValue("{\"wheels\": 4}", Car.class);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.*;
+import javax.tools.Diagnostic;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates <code>org.ehony.dsl.api.NestedTagWiring</code> implementations for container tags
+ * which have members annotated with <code>org.ehony.dsl.api.NestedTag</code>.
+ * <p>Generated wiring appends nested tags to container children in the same order as
+ * <code>org.ehony.dsl.NestedTagProcessor</code> does, but accesses members directly without
+ * reflection. Wiring is not generated if any of nested tag members cannot be accessed from
+ * the package of container type, in such case reflective processing is used at runtime.</p>
+ */
+@SupportedAnnotationTypes("*")
+public class NestedTagWiringProcessor extends AbstractProcessor
+{
+
+    static final String NESTED_TAG = "org.ehony.dsl.api.NestedTag";
+    static final String CONTAINER_TAG = "org.ehony.dsl.api.ContainerTag";
+    static final String WIRING = "org.ehony.dsl.api.NestedTagWiring";
+    static final String SUFFIX = "_NestedTags";
+
+    private Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        TypeElement container = processingEnv.getElementUtils().getTypeElement(CONTAINER_TAG);
+        if (container != null) {
+            for (Element element : round.getRootElements()) {
+                visit(element, processingEnv.getTypeUtils().erasure(container.asType()));
+            }
+        }
+        // Annotations are never claimed, other processors may use them too.
+        return false;
+    }
+
+    private void visit(Element element, TypeMirror container) {
+        if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.INTERFACE) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        if (element.getKind() == ElementKind.CLASS
+                && !type.getModifiers().contains(Modifier.ABSTRACT)
+                && isVisible(type)
+                && processingEnv.getTypeUtils().isAssignable(type.asType(), container)) {
+            generate(type);
+        }
+        for (Element member : type.getEnclosedElements()) {
+            visit(member, container);
+        }
+    }
+
+    /**
+     * Check that type can be referenced from its package.
+     */
+    private static boolean isVisible(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        Elements elements = processingEnv.getElementUtils();
+        String name = elements.getBinaryName(type).toString() + SUFFIX;
+        if (!generated.add(name)) {
+            return;
+        }
+        List<Element> members = new ArrayList<>();
+        collect(type.asType(), members);
+        if (members.isEmpty()) {
+            return;
+        }
+        PackageElement pkg = elements.getPackageOf(type);
+        for (Element member : members) {
+            if (!isAccessible(member, pkg)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Nested tag wiring is not generated, member is not accessible: " + member, type);
+                return;
+            }
+        }
+        try (Writer out = processingEnv.getFiler().createSourceFile(name, type).openWriter()) {
+            write(out, type, pkg, name.substring(name.lastIndexOf('.') + 1), members);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + name + ": " + e, type);
+        }
+    }
+
+    /**
+     * Collect nested tag members of class hierarchy in order they are processed at runtime:
+     * interfaces, superclass, fields and then methods.
+     */
+    private void collect(TypeMirror mirror, List<Element> out) {
+        if (mirror.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+        TypeElement type = (TypeElement) processingEnv.getTypeUtils().asElement(mirror);
+        for (TypeMirror c : type.getInterfaces()) {
+            collect(c, out);
+        }
+        collect(type.getSuperclass(), out);
+        for (ElementKind kind : Arrays.asList(ElementKind.FIELD, ElementKind.METHOD)) {
+            for (Element member : type.getEnclosedElements()) {
+                if (member.getKind() == kind && isNestedTag(member)) {
+                    out.add(member);
+                }
+            }
+        }
+    }
+
+    private static boolean isNestedTag(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(NESTED_TAG)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAccessible(Element member, PackageElement pkg) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            return false;
+        }
+        if (member.getKind() == ElementKind.METHOD && !((ExecutableElement) member).getParameters().isEmpty()) {
+            return false;
+        }
+        if (member.getKind() == ElementKind.FIELD && !isAccessible((TypeElement) member.getEnclosingElement(), pkg)) {
+            // Field is read via cast to its declaring class.
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC)
+                || processingEnv.getElementUtils().getPackageOf(member).equals(pkg);
+    }
+
+    private boolean isAccessible(TypeElement type, PackageElement pkg) {
+        if (processingEnv.getElementUtils().getPackageOf(type).equals(pkg)) {
+            return isVisible(type);
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (!e.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(Writer out, TypeElement type, PackageElement pkg, String name, List<Element> members) throws IOException {
+        String typeName = type.getQualifiedName().toString();
+        if (!pkg.isUnnamed()) {
+            out.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        }
+        out.append("/**\n * Wires nested tags of {@link ").append(typeName).append("}.\n */\n");
+        String annotation = getGeneratedAnnotation();
+        if (annotation != null) {
+            out.append('@').append(annotation).append("(\"").append(getClass().getName()).append("\")\n");
+        }
+        out.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(name).append(" implements ").append(WIRING).append('<').append(typeName).append(">\n")
+                .append("{\n\n")
+                .append("    @Override\n")
+                .append("    public void wire(").append(typeName).append(" tag) {\n")
+                .append("        ").append(CONTAINER_TAG).append(" container = tag;\n")
+                .append("        org.ehony.dsl.api.Tag child;\n");
+        for (Element member : members) {
+            out.append("        child = (org.ehony.dsl.api.Tag) ");
+            if (member.getKind() == ElementKind.METHOD) {
+                out.append("tag.").append(member.getSimpleName()).append("()");
+            } else {
+                // Subclass field of the same name would hide inherited one.
+                out.append("((").append(((TypeElement) member.getEnclosingElement()).getQualifiedName())
+                        .append(") tag).").append(member.getSimpleName());
+            }
+            out.append(";\n")
+                    .append("        if (child != null) {\n")
+                    .append("            container.appendChild(child);\n")
+                    .append("        }\n");
+        }
+        out.append("    }\n}\n");
+    }
+
+    private String getGeneratedAnnotation() {
+        for (String name : Arrays.asList("javax.annotation.processing.Generated", "javax.annotation.Generated")) {
+            if (processingEnv.getElementUtils().getTypeElement(name) != null) {
+                return name;
+            }
+        }
+        return null;
+    }
+}
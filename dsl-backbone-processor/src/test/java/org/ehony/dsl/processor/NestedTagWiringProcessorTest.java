@@ -0,0 +1,154 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.processor;
+
+import org.ehony.dsl.NestedTagProcessor;
+import org.ehony.dsl.api.ContainerTag;
+import org.ehony.dsl.api.NestedTagWiring;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class NestedTagWiringProcessorTest
+{
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private URLClassLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        File src = folder.newFolder("src"), out = folder.newFolder("out");
+        List<File> files = new ArrayList<>();
+        files.add(write(src, "org/sample/Car.java",
+                "package org.sample;",
+                "import org.ehony.dsl.*;",
+                "import org.ehony.dsl.api.*;",
+                "public class Car extends ContainerBaseTag<Car, ContainerTag> {",
+                "    @NestedTag public Engine engine;",
+                "    @NestedTag Engine spare;",
+                "    @NestedTag public Engine turbo() { return spare == null ? null : new Engine(); }",
+                "    public static class Truck extends Car {",
+                "        @NestedTag protected Engine trailer;",
+                "    }",
+                "    public static class Van extends Car {",
+                "        public Engine engine;",
+                "    }",
+                "}"));
+        files.add(write(src, "org/sample/Engine.java",
+                "package org.sample;",
+                "import org.ehony.dsl.*;",
+                "public class Engine extends BaseTag<Engine, Car> {}"));
+        files.add(write(src, "org/sample/Boat.java",
+                "package org.sample;",
+                "import org.ehony.dsl.*;",
+                "import org.ehony.dsl.api.*;",
+                "public class Boat extends ContainerBaseTag<Boat, ContainerTag> {",
+                "    @NestedTag private Engine engine;",
+                "    public Boat engine(Engine engine) { this.engine = engine; return this; }",
+                "}"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager manager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        List<String> options = Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", out.getPath(),
+                "-s", out.getPath(),
+                "-processor", NestedTagWiringProcessor.class.getName());
+        assertTrue(compiler.getTask(null, manager, null, options, null, manager.getJavaFileObjectsFromFiles(files)).call());
+
+        assertTrue(new File(out, "org/sample/Car_NestedTags.java").exists());
+        assertTrue(new File(out, "org/sample/Car$Truck_NestedTags.java").exists());
+        assertTrue(new File(out, "org/sample/Car$Van_NestedTags.java").exists());
+        assertFalse("Private member cannot be wired.", new File(out, "org/sample/Boat_NestedTags.java").exists());
+        assertFalse(new File(out, "org/sample/Engine_NestedTags.java").exists());
+
+        loader = new URLClassLoader(new URL[]{out.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        loader.close();
+    }
+
+    private static File write(File root, String path, String... lines) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private ContainerTag create(String name) throws Exception {
+        return (ContainerTag) loader.loadClass(name).newInstance();
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        java.lang.reflect.Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    @Test
+    public void testGeneratedWiring() throws Exception {
+        ContainerTag car = create("org.sample.Car");
+        Object engine = loader.loadClass("org.sample.Engine").newInstance();
+        Object spare = loader.loadClass("org.sample.Engine").newInstance();
+        set(car, "engine", engine);
+        set(car, "spare", spare);
+
+        Object wiring = loader.loadClass("org.sample.Car" + NestedTagWiring.SUFFIX).newInstance();
+        assertTrue(wiring instanceof NestedTagWiring);
+
+        NestedTagProcessor.wire(car);
+        assertEquals(3, car.getChildren().size());
+        assertSame(engine, car.getChildren().get(0));
+        assertSame(spare, car.getChildren().get(1));
+    }
+
+    @Test
+    public void testInheritedMembers() throws Exception {
+        ContainerTag truck = create("org.sample.Car$Truck");
+        Object engine = loader.loadClass("org.sample.Engine").newInstance();
+        Object trailer = loader.loadClass("org.sample.Engine").newInstance();
+        truck.getClass().getSuperclass().getField("engine").set(truck, engine);
+        set(truck, "trailer", trailer);
+
+        NestedTagProcessor.wire(truck);
+        assertEquals(Arrays.asList(engine, trailer), truck.getChildren());
+    }
+
+    @Test
+    public void testHiddenField() throws Exception {
+        ContainerTag van = create("org.sample.Car$Van");
+        Object engine = loader.loadClass("org.sample.Engine").newInstance();
+        Object other = loader.loadClass("org.sample.Engine").newInstance();
+        van.getClass().getSuperclass().getField("engine").set(van, engine);
+        van.getClass().getField("engine").set(van, other);
+
+        NestedTagProcessor.wire(van);
+        assertEquals(Collections.singletonList(engine), van.getChildren());
+    }
+
+    @Test
+    public void testReflectiveFallback() throws Exception {
+        ContainerTag boat = create("org.sample.Boat");
+        Object engine = loader.loadClass("org.sample.Engine").newInstance();
+        set(boat, "engine", engine);
+
+        NestedTagProcessor.wire(boat);
+        assertEquals(Collections.singletonList(engine), boat.getChildren());
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.stax;
+
+import org.ehony.dsl.annotation.Accessor;
+import org.ehony.dsl.api.*;
+import org.ehony.dsl.binding.*;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Reads tag trees from {@link XMLStreamReader} using {@link TagBinding} metadata derived from JAXB annotations.
+ * <p>Unlike JAXB unmarshalling reader does not build DOM and does not use reflection after
+ * bindings of tag classes are cached. Attributes which are not bound to properties are put to
+ * {@link Tolerant#getCustomAttributes() custom attributes} and tags referenced by {@link NestedTag}
+ * members are appended to their containers as soon as they are read, so tree does not require
+ * additional processing with {@link org.ehony.dsl.NestedTagProcessor}.</p>
+ * <p>Reader is thread-safe and is expected to be shared.</p>
+ */
+public class TagReader
+{
+
+    private final Map<QName, Class<?>> types = new HashMap<>();
+    private final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    /**
+     * Create reader of documents which root elements are mapped to given types.
+     *
+     * @param types classes annotated with {@link javax.xml.bind.annotation.XmlRootElement}.
+     * @exception IllegalArgumentException type is not a root element or uses unsupported JAXB mapping.
+     */
+    public TagReader(Class<?>... types) {
+        for (Class<?> type : types) {
+            QName name = TagBinding.of(type).getName();
+            if (name == null) {
+                throw new IllegalArgumentException("Root element expected: " + type.getName());
+            }
+            this.types.put(name, type);
+        }
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Read tag tree from stream.
+     *
+     * @param in stream to read from, it is not closed by this method.
+     * @return Root tag.
+     * @throws XMLStreamException if document is malformed or cannot be mapped to tags.
+     */
+    public Object read(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = createReader(in);
+        try {
+            return read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read tag tree rooted at current or next element of the stream.
+     *
+     * @param in stream reader.
+     * @return Root tag.
+     * @throws XMLStreamException if document is malformed or root element is not known.
+     */
+    public Object read(XMLStreamReader in) throws XMLStreamException {
+        return read(in, getRootType(in));
+    }
+
+    /**
+     * Create stream reader configured by this reader.
+     */
+    XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+        // Factories are not guaranteed to be thread-safe.
+        synchronized (factory) {
+            return factory.createXMLStreamReader(in);
+        }
+    }
+
+    /**
+     * Move stream to the root element and resolve its type.
+     */
+    Class<?> getRootType(XMLStreamReader in) throws XMLStreamException {
+        if (in.getEventType() != START_ELEMENT) {
+            in.nextTag();
+        }
+        Class<?> type = types.get(in.getName());
+        if (type == null) {
+            throw new XMLStreamException("Unexpected element: " + in.getName(), in.getLocation());
+        }
+        return type;
+    }
+
+    /**
+     * Read current element of the stream as tag of given type.
+     * <p>When method returns stream is positioned at the end of the element.</p>
+     *
+     * @param in stream reader positioned at the start of element.
+     * @param type expected tag type.
+     * @return Tag read from stream.
+     * @throws XMLStreamException if document is malformed or cannot be mapped to tags.
+     */
+    public <Type> Type read(XMLStreamReader in, Class<Type> type) throws XMLStreamException {
+        in.require(START_ELEMENT, null, null);
+        try {
+            return type.cast(readTag(in, TagBinding.of(type)));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new XMLStreamException(e.getMessage(), in.getLocation(), e);
+        }
+    }
+
+    /**
+     * Create tag and assign its attributes.
+     */
+    Object readAttributes(XMLStreamReader in, TagBinding binding) {
+        Object tag = binding.newInstance();
+        Map<QName, Object> custom = null;
+        for (int i = 0, n = in.getAttributeCount(); i < n; i++) {
+            QName name = in.getAttributeName(i);
+            PropertyBinding property = binding.getAttribute(name);
+            if (property != null) {
+                property.set(tag, property.parse(in.getAttributeValue(i)));
+            } else if (!XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(name.getNamespaceURI())) {
+                if (custom == null) {
+                    custom = binding.getCustomAttributes(tag);
+                    if (custom == null) {
+                        // Unknown attributes are ignored like JAXB does.
+                        continue;
+                    }
+                }
+                custom.put(name, in.getAttributeValue(i));
+            }
+        }
+        return tag;
+    }
+
+    /**
+     * Read element content of the tag.
+     */
+    void readContent(XMLStreamReader in, TagBinding binding, Object tag) throws XMLStreamException {
+        readContent(in, binding, tag, null);
+    }
+
+    /**
+     * Read element content of the tag, tags read from elements are passed to consumer instead
+     * of being assigned to properties if consumer is provided.
+     */
+    @SuppressWarnings("unchecked")
+    void readContent(XMLStreamReader in, TagBinding binding, Object tag, Consumer<Tag> children) throws XMLStreamException {
+        PropertyBinding value = binding.getValue();
+        StringBuilder text = null;
+        for (int event = in.next(); event != END_ELEMENT; event = in.next()) {
+            switch (event) {
+                case START_ELEMENT:
+                    PropertyBinding property = binding.getElement(in.getName());
+                    if (property == null) {
+                        skip(in);
+                        break;
+                    }
+                    Object child;
+                    if (property.isSimple()) {
+                        child = property.parse(in.getElementText());
+                    } else {
+                        child = readTag(in, TagBinding.of(property.getType()));
+                        if (children != null && child instanceof Tag) {
+                            children.accept((Tag) child);
+                            break;
+                        }
+                    }
+                    property.set(tag, child);
+                    if (property.isNested() && child != null) {
+                        ((ContainerTag) tag).appendChild((Tag) child);
+                    }
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                    if (value != null) {
+                        if (text == null) {
+                            text = new StringBuilder();
+                        }
+                        text.append(in.getTextCharacters(), in.getTextStart(), in.getTextLength());
+                    }
+                    break;
+            }
+        }
+        if (text != null) {
+            value.set(tag, value.parse(text.toString()));
+        }
+        for (Accessor accessor : binding.getNestedTags()) {
+            Tag child = (Tag) accessor.get(tag);
+            if (child != null && child.getParentTag() != tag) {
+                ((ContainerTag) tag).appendChild(child);
+            }
+        }
+    }
+
+    private Object readTag(XMLStreamReader in, TagBinding binding) throws XMLStreamException {
+        Object tag = readAttributes(in, binding);
+        readContent(in, binding, tag);
+        return tag;
+    }
+
+    /**
+     * Skip current element along with its content.
+     */
+    static void skip(XMLStreamReader in) throws XMLStreamException {
+        for (int depth = 1; depth > 0; ) {
+            switch (in.next()) {
+                case START_ELEMENT:
+                    depth++;
+                    break;
+                case END_ELEMENT:
+                    depth--;
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.stax;
+
+import org.ehony.dsl.api.*;
+import org.ehony.dsl.binding.TagBinding;
+
+import javax.xml.stream.*;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Reads containers with arbitrary number of children, handing child tags to consumer one at a time.
+ * <p>Attributes and simple elements of root container are read as usual. Each child element is read
+ * along with its subtree, appended to root container, passed to consumer and removed from root
+ * children right after consumer returns, it is not assigned to property of root either. So memory
+ * consumption depends on size of the largest child rather than on number of children.</p>
+ * <pre>
+ * Rules rules = new TagStream(Rules.class).read(in, Rules.class, rule -&gt; engine.add(rule));
+ * </pre>
+ * <p>Stream is thread-safe and is expected to be shared.</p>
+ *
+ * @see TagReader
+ */
+public class TagStream
+{
+
+    private final TagReader reader;
+
+    /**
+     * Create stream of documents which root elements are mapped to given container types.
+     *
+     * @param types classes annotated with {@link javax.xml.bind.annotation.XmlRootElement}.
+     * @exception IllegalArgumentException type is not a root element or uses unsupported JAXB mapping.
+     */
+    public TagStream(Class<?>... types) {
+        this(new TagReader(types));
+    }
+
+    /**
+     * Create stream of documents which root elements are known to given reader.
+     * @param reader reader of root elements.
+     */
+    public TagStream(TagReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read root container from stream and pass its children to consumer.
+     *
+     * @param in stream to read from, it is not closed by this method.
+     * @param consumer consumer of child tags.
+     * @return Root container without children.
+     * @throws XMLStreamException if document is malformed or cannot be mapped to tags.
+     */
+    public Object read(InputStream in, Consumer<? super Tag> consumer) throws XMLStreamException {
+        XMLStreamReader stream = reader.createReader(in);
+        try {
+            return read(stream, consumer);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Read root container rooted at current or next element of the stream and pass its children to consumer.
+     *
+     * @param in stream reader.
+     * @param consumer consumer of child tags.
+     * @return Root container without children.
+     * @throws XMLStreamException if document is malformed or root element is not known.
+     */
+    public Object read(XMLStreamReader in, Consumer<? super Tag> consumer) throws XMLStreamException {
+        return read(in, reader.getRootType(in), consumer);
+    }
+
+    /**
+     * Read current element of the stream as container of given type and pass its children to consumer.
+     * <p>When consumer is invoked, parent of child tag is the returned container. Runtime exceptions
+     * thrown by consumer are propagated as is. When method returns stream is positioned at the end
+     * of the element.</p>
+     *
+     * @param in stream reader positioned at the start of element.
+     * @param type expected container type.
+     * @param consumer consumer of child tags.
+     * @return Root container without children.
+     * @throws XMLStreamException if document is malformed or cannot be mapped to tags.
+     */
+    @SuppressWarnings("unchecked")
+    public <Type> Type read(XMLStreamReader in, Class<Type> type, Consumer<? super Tag> consumer) throws XMLStreamException {
+        in.require(START_ELEMENT, null, null);
+        if (!ContainerTag.class.isAssignableFrom(type)) {
+            throw new XMLStreamException("Container expected: " + type.getName(), in.getLocation());
+        }
+        try {
+            TagBinding binding = TagBinding.of(type);
+            ContainerTag root = (ContainerTag) reader.readAttributes(in, binding);
+            reader.readContent(in, binding, root, child -> {
+                root.appendChild(child);
+                try {
+                    consumer.accept(child);
+                } catch (RuntimeException e) {
+                    throw new ConsumerException(e);
+                } finally {
+                    if (child.getParentTag() == root) {
+                        root.getChildren().remove(child);
+                    }
+                }
+            });
+            return type.cast(root);
+        } catch (ConsumerException e) {
+            throw (RuntimeException) e.getCause();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new XMLStreamException(e.getMessage(), in.getLocation(), e);
+        }
+    }
+
+    /**
+     * Carries consumer failure through reader, so it is not reported as mapping error.
+     */
+    private static final class ConsumerException extends RuntimeException
+    {
+
+        ConsumerException(RuntimeException cause) {
+            super(cause);
+        }
+    }
+}
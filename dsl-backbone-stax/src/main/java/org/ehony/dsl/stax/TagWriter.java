@@ -0,0 +1,257 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.stax;
+
+import org.ehony.dsl.binding.*;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+/**
+ * Writes tag trees to {@link XMLStreamWriter} using {@link TagBinding} metadata derived from JAXB annotations.
+ * <p>Tags are written as they are traversed, so unlike JAXB marshalling no intermediate
+ * structures are created regardless of tree size. Namespace prefixes are declared as needed.</p>
+ * <p>Elements are written without <code>xsi:type</code>, so tags of element properties must be
+ * instances of exactly declared property type, otherwise they would be read back as declared type.</p>
+ * <p>Writer is thread-safe and is expected to be shared.</p>
+ */
+public class TagWriter
+{
+
+    private static final String ENCODING = "utf-8";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final XMLOutputFactory factory = XMLOutputFactory.newInstance();
+
+    /**
+     * Write XML document containing tag tree.
+     *
+     * @param tag root tag, its class must be annotated with {@link javax.xml.bind.annotation.XmlRootElement}.
+     * @param out stream to write to, it is not closed by this method.
+     * @throws XMLStreamException if document cannot be written.
+     */
+    public void write(Object tag, OutputStream out) throws XMLStreamException {
+        // Stream writer encodes characters one by one, so they are buffered and encoded in bulk.
+        Writer buffer = new CharBuffer(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        XMLStreamWriter writer;
+        // Factories are not guaranteed to be thread-safe.
+        synchronized (factory) {
+            writer = factory.createXMLStreamWriter(buffer);
+        }
+        try {
+            writer.writeStartDocument(ENCODING, "1.0");
+            write(tag, writer);
+            writer.writeEndDocument();
+            writer.flush();
+            buffer.flush();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Write XML document containing tag tree.
+     *
+     * @param tag root tag.
+     * @param out channel to write to, it is not closed by this method.
+     * @throws XMLStreamException if document cannot be written.
+     */
+    public void write(Object tag, WritableByteChannel out) throws XMLStreamException {
+        write(tag, Channels.newOutputStream(out));
+    }
+
+    /**
+     * Write tag tree as element named after root element of tag class.
+     *
+     * @param tag root tag.
+     * @param out stream writer.
+     * @throws XMLStreamException if tree cannot be written.
+     */
+    public void write(Object tag, XMLStreamWriter out) throws XMLStreamException {
+        TagBinding binding = TagBinding.of(tag.getClass());
+        if (binding.getName() == null) {
+            throw new XMLStreamException("Root element expected: " + tag.getClass().getName());
+        }
+        write(tag, binding.getName(), out);
+    }
+
+    /**
+     * Write tag tree as element with given name.
+     *
+     * @param tag root tag.
+     * @param name element name.
+     * @param out stream writer.
+     * @throws XMLStreamException if tree cannot be written.
+     */
+    public void write(Object tag, QName name, XMLStreamWriter out) throws XMLStreamException {
+        try {
+            writeTag(tag, name, TagBinding.of(tag.getClass()), out);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new XMLStreamException(e.getMessage(), e);
+        }
+    }
+
+    private void writeTag(Object tag, QName name, TagBinding binding, XMLStreamWriter out) throws XMLStreamException {
+        writeStartElement(name, out);
+        for (PropertyBinding property : binding.getAttributes()) {
+            Object value = property.get(tag);
+            if (value != null) {
+                writeAttribute(property.getName(), property.print(value), out);
+            }
+        }
+        Map<QName, Object> custom = binding.getCustomAttributes(tag);
+        if (custom != null) {
+            for (Map.Entry<QName, Object> attribute : custom.entrySet()) {
+                if (attribute.getValue() != null) {
+                    writeAttribute(attribute.getKey(), attribute.getValue().toString(), out);
+                }
+            }
+        }
+        for (PropertyBinding property : binding.getElements()) {
+            Object value = property.get(tag);
+            if (value == null) {
+                continue;
+            }
+            if (property.isCollection()) {
+                for (Object item : (Iterable<?>) value) {
+                    writeElement(property, item, out);
+                }
+            } else {
+                writeElement(property, value, out);
+            }
+        }
+        PropertyBinding value = binding.getValue();
+        if (value != null) {
+            String text = value.print(value.get(tag));
+            if (text != null) {
+                out.writeCharacters(text);
+            }
+        }
+        out.writeEndElement();
+    }
+
+    private void writeElement(PropertyBinding property, Object value, XMLStreamWriter out) throws XMLStreamException {
+        if (value == null) {
+            return;
+        }
+        if (property.isSimple()) {
+            writeStartElement(property.getName(), out);
+            out.writeCharacters(property.print(value));
+            out.writeEndElement();
+        } else {
+            if (value.getClass() != property.getType()) {
+                throw new XMLStreamException("Element " + property.getName() + " of type " + property.getType().getName()
+                        + " cannot be written as " + value.getClass().getName());
+            }
+            writeTag(value, property.getName(), TagBinding.of(property.getType()), out);
+        }
+    }
+
+    private static void writeStartElement(QName name, XMLStreamWriter out) throws XMLStreamException {
+        String namespace = name.getNamespaceURI();
+        String current = out.getNamespaceContext().getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX);
+        out.writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, name.getLocalPart(), namespace);
+        if (!namespace.equals(current == null ? XMLConstants.NULL_NS_URI : current)) {
+            out.setDefaultNamespace(namespace);
+            out.writeDefaultNamespace(namespace);
+        }
+    }
+
+    private static void writeAttribute(QName name, String value, XMLStreamWriter out) throws XMLStreamException {
+        String namespace = name.getNamespaceURI();
+        if (namespace.isEmpty()) {
+            out.writeAttribute(name.getLocalPart(), value);
+            return;
+        }
+        String prefix = out.getNamespaceContext().getPrefix(namespace);
+        if (prefix == null || prefix.isEmpty()) {
+            // Default namespace is not applied to attributes, so prefix is required.
+            int i = 1;
+            while (out.getNamespaceContext().getNamespaceURI("ns" + i) != null) {
+                i++;
+            }
+            prefix = "ns" + i;
+            out.setPrefix(prefix, namespace);
+            out.writeNamespace(prefix, namespace);
+        }
+        out.writeAttribute(prefix, namespace, name.getLocalPart(), value);
+    }
+
+    /**
+     * Unsynchronized character buffer, stream writers call {@link #write(int)} for every escaped character.
+     */
+    private static final class CharBuffer extends Writer
+    {
+
+        private final Writer out;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int size;
+
+        CharBuffer(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (size == buffer.length) {
+                flushBuffer();
+            }
+            buffer[size++] = (char) c;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (length > buffer.length - size) {
+                flushBuffer();
+                if (length > buffer.length) {
+                    out.write(chars, offset, length);
+                    return;
+                }
+            }
+            System.arraycopy(chars, offset, buffer, size, length);
+            size += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            if (length > buffer.length - size) {
+                flushBuffer();
+                if (length > buffer.length) {
+                    out.write(text, offset, length);
+                    return;
+                }
+            }
+            text.getChars(offset, offset + length, buffer, size);
+            size += length;
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Underlying stream is owned by caller.
+            flush();
+        }
+    }
+}
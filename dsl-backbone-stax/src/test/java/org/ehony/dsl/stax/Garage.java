@@ -0,0 +1,24 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.stax;
+
+import org.ehony.dsl.ContainerBaseTag;
+import org.ehony.dsl.api.ContainerTag;
+import org.example.Car;
+
+import javax.xml.bind.annotation.*;
+import java.util.*;
+
+@XmlRootElement
+public class Garage extends ContainerBaseTag<Garage, ContainerTag>
+{
+
+    @XmlAttribute
+    public String city;
+    @XmlElement(name = "super-car", namespace = "http://example.org/")
+    public List<Car> cars = new ArrayList<>();
+}
@@ -0,0 +1,62 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.stax;
+
+import org.example.*;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+
+import static org.example.Brand.Porsche;
+import static org.junit.Assert.*;
+
+public class TagReaderTest
+{
+
+    private final TagReader reader = new TagReader(Car.class);
+
+    private Object read(String xml) throws Exception {
+        return reader.read(new ByteArrayInputStream(xml.getBytes("utf-8")));
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        Car expected = new Car()
+                .id("my-car")
+                .brand(Porsche)
+                .engine()
+                    .id("M28.01")
+                    .gears(5)
+                    .attribute("http://ehony.org/", "maintenance-year", "2014")
+                    .attribute("petrol", "E95")
+                .end();
+
+        Car observed = (Car) reader.read(Car.class.getResourceAsStream("/car.xml"));
+        assertEquals(expected.toString(), observed.toString());
+        assertSame(observed, observed.engine.getParentTag());
+        assertEquals("2014", observed.engine.getCustomAttributes().get(new QName("http://ehony.org/", "maintenance-year")));
+    }
+
+    @Test
+    public void testSkipUnknownElements() throws Exception {
+        Car car = (Car) read("<super-car xmlns='http://example.org/'><wheel><tire/></wheel><engine gears='4'/></super-car>");
+        assertEquals(Integer.valueOf(4), car.engine.gears);
+        assertEquals(1, car.getChildren().size());
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testUnknownRoot() throws Exception {
+        read("<truck xmlns='http://example.org/'/>");
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testMalformedValue() throws Exception {
+        read("<super-car xmlns='http://example.org/'><engine gears='many'/></super-car>");
+    }
+}
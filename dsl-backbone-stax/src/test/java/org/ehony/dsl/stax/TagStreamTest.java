@@ -0,0 +1,94 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.stax;
+
+import org.ehony.dsl.api.Tag;
+import org.example.Car;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TagStreamTest
+{
+
+    private final TagStream stream = new TagStream(Garage.class, Car.class);
+
+    /**
+     * Generate garage document on the fly, so it is never held in memory entirely.
+     */
+    private static InputStream garage(int count) {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+
+            private int i = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return i <= count;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String xml;
+                if (i < 0) {
+                    xml = "<garage city='Stuttgart'>";
+                } else if (i < count) {
+                    xml = "<super-car xmlns='http://example.org/' id='car-" + i + "'><engine gears='" + (i % 7) + "'/></super-car>";
+                } else {
+                    xml = "</garage>";
+                }
+                i++;
+                return new ByteArrayInputStream(xml.getBytes());
+            }
+        });
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        List<Tag> parents = new ArrayList<>();
+        int[] count = {0};
+        Garage garage = (Garage) stream.read(garage(100000), tag -> {
+            Car car = (Car) tag;
+            assertEquals("car-" + count[0], car.getId());
+            assertSame(car.engine, car.getChildren().get(0));
+            if (count[0]++ == 0) {
+                parents.add(car.getParentTag());
+            }
+        });
+        assertEquals(100000, count[0]);
+        assertEquals("Stuttgart", garage.city);
+        assertSame(garage, parents.get(0));
+        assertTrue(garage.getChildren().isEmpty());
+        assertTrue(garage.cars.isEmpty());
+    }
+
+    @Test
+    public void testDetach() throws Exception {
+        List<Car> cars = new ArrayList<>();
+        stream.read(garage(3), tag -> cars.add((Car) tag));
+        assertEquals(3, cars.size());
+        for (Car car : cars) {
+            assertNull(car.getParentTag());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testConsumerFailure() throws Exception {
+        stream.read(garage(3), tag -> {
+            throw new UnsupportedOperationException();
+        });
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testMalformedChild() throws Exception {
+        String xml = "<garage><super-car xmlns='http://example.org/'><engine gears='many'/></super-car></garage>";
+        stream.read(new ByteArrayInputStream(xml.getBytes()), tag -> fail("Malformed child must not be consumed."));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.stax;
+
+import org.custommonkey.xmlunit.XMLUnit;
+import org.example.Car;
+import org.example.Engine;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.util.Scanner;
+
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.example.Brand.Porsche;
+import static org.junit.Assert.assertEquals;
+
+public class TagWriterTest
+{
+
+    private Car car;
+
+    @Before
+    public void before() throws Exception {
+        car = new Car()
+                .id("my-car")
+                .brand(Porsche)
+                .engine()
+                    .id("M28.01")
+                    .gears(5)
+                    .attribute("http://ehony.org/", "maintenance-year", "2014")
+                    .attribute("petrol", "E95")
+                .end();
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TagWriter().write(car, out);
+
+        XMLUnit.setIgnoreWhitespace(true);
+        String expected = new Scanner(Car.class.getResourceAsStream("/car.xml"), "utf-8").useDelimiter("\\A").next();
+        assertXMLEqual(expected, out.toString("utf-8"));
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testSubclassElement() throws Exception {
+        car.engine = new Engine() {};
+        new TagWriter().write(car, new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TagWriter().write(car, Channels.newChannel(out));
+
+        Object observed = new TagReader(Car.class).read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(car.toString(), observed.toString());
+    }
+}
@@ -34,6 +34,11 @@ public class BaseTag<
                    Tolerant<Type>
 {
 
+    /**
+     * Cached resolution of tag without context.
+     */
+    private static final Object NO_CONTEXT = new Object();
+
     @XmlTransient
     private String id;
     @XmlTransient
@@ -42,6 +47,18 @@ public class BaseTag<
     private TagContext context;
     @XmlTransient
     private Map<QName, Object> attributes;
+    /**
+     * Resolved context, {@link #NO_CONTEXT} or <code>null</code> if context is not cached.
+     */
+    @XmlTransient
+    private Object resolved;
+    /**
+     * Is this tag on path from tag with cached context to the tag which provides it.
+     */
+    @XmlTransient
+    private boolean cached;
+    @XmlTransient
+    private boolean frozen;
 
     /**
      * Get the value of the optional identifier property.
@@ -57,7 +74,15 @@ public class BaseTag<
      * Set the value of the identifier property.
      */
     public void setId(String id) {
+        ensureMutable();
+        String previous = this.id;
         this.id = id;
+        if (!Objects.equals(previous, id)) {
+            TagIdIndex index = TagIdIndex.of(this);
+            if (index != null) {
+                index.update(this, previous, id);
+            }
+        }
     }
 
     @Override
@@ -76,14 +101,31 @@ public class BaseTag<
         }
         Parent tag = this.parent;
         if (parent != tag) {
+            ensureMutable();
+            // Checked up front, so failed attempt leaves both trees intact.
+            ensureMutable(tag);
+            ensureMutable(parent);
             if (tag != null) {
+                TagIdIndex index = TagIdIndex.of(tag);
                 this.parent = null;
                 tag.getChildren().remove(this);
+                if (index != null) {
+                    index.removeAll(this);
+                }
             }
             if (parent != null) {
+                if (this instanceof ContainerBaseTag) {
+                    // Subtree is indexed by its new root.
+                    ((ContainerBaseTag<?, ?>) this).index = null;
+                }
                 this.parent = parent;
                 parent.getChildren().add(this);
+                TagIdIndex index = TagIdIndex.of(parent);
+                if (index != null) {
+                    index.addAll(this);
+                }
             }
+            invalidate();
         }
         return tag;
     }
@@ -101,23 +143,118 @@ public class BaseTag<
 
     @Override
     public void setContext(TagContext context) {
+        ensureMutable();
         this.context = context;
+        invalidate();
     }
 
+    /**
+     * Get context of this tag or of its closest ancestor which has context.
+     * <p>Resolved context is cached until context or parent of this tag or of any tag between it
+     * and the tag providing context changes, so in steady state lookup does not depend on tree
+     * depth. Result is not cached if any of these tags is not a {@link BaseTag}, since its changes
+     * cannot be tracked. Context of {@linkplain #freeze() frozen} tag is resolved once when it is frozen.</p>
+     * @return {@link TagContext} or <code>null</code> if context was not set for tag or any of its ancestors.
+     */
     public TagContext resolveContext() {
+        Object resolved = this.resolved;
+        if (resolved != null) {
+            return resolved == NO_CONTEXT ? null : (TagContext) resolved;
+        }
+        TagContext context = null;
+        boolean trackable = true;
         for (Tag tag = this; tag != null; tag = tag.getParentTag()) {
+            trackable &= tag instanceof BaseTag;
             if (tag.getContext() != null) {
-                return tag.getContext();
+                context = tag.getContext();
+                break;
+            }
+        }
+        if (trackable) {
+            // Tags on path are marked, so their changes reach this tag.
+            for (Tag tag = this; tag != null && !((BaseTag) tag).cached; tag = tag.getParentTag()) {
+                ((BaseTag) tag).cached = true;
+                if (tag.getContext() != null) {
+                    break;
+                }
+            }
+            this.resolved = context == null ? NO_CONTEXT : context;
+        }
+        return context;
+    }
+
+    /**
+     * Drop cached contexts of this tag and descendants which resolved context through it.
+     */
+    private void invalidate() {
+        if (!cached) {
+            return;
+        }
+        Deque<BaseTag<?, ?>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            BaseTag<?, ?> tag = stack.pop();
+            tag.resolved = null;
+            tag.cached = false;
+            if (tag instanceof ContainerTag) {
+                for (Tag<?> child : ((ContainerTag<?, ?>) tag).getChildren()) {
+                    if (child instanceof BaseTag && ((BaseTag<?, ?>) child).cached) {
+                        stack.push((BaseTag<?, ?>) child);
+                    }
+                }
             }
         }
-        return null;
+    }
+
+    @Override
+    @XmlTransient
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Custom attributes are replaced with immutable copy. Subclasses should freeze their
+     * own mutable state and check {@link #ensureMutable()} in their mutators.</p>
+     */
+    @Override
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+        if (parent != null && !parent.isFrozen()) {
+            throw new IllegalStateException("Parent must be frozen first: " + getTagName());
+        }
+        frozen = true;
+        // Path of frozen tag cannot change, so context is resolved for good.
+        // Parent is frozen first, so its context is pinned already.
+        resolved = null;
+        TagContext context = this.context != null || !(parent instanceof BaseTag) ? resolveContext() : ((BaseTag) parent).resolveContext();
+        resolved = context == null ? NO_CONTEXT : context;
+        attributes = CompactMap.freeze(attributes == null ? Collections.emptyMap() : attributes);
+    }
+
+    /**
+     * Ensure tag is not {@linkplain #freeze() frozen} before it is modified.
+     * @exception IllegalStateException if tag is frozen.
+     */
+    protected void ensureMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Tag is frozen: " + getTagName());
+        }
+    }
+
+    private static void ensureMutable(Tag parent) {
+        if (parent != null && parent.isFrozen()) {
+            throw new IllegalStateException("Parent is frozen: " + parent.getTagName());
+        }
     }
 
     @Override
     @XmlAnyAttribute
     public Map<QName, Object> getCustomAttributes() {
         if (attributes == null) {
-            attributes = new HashMap<>();
+            attributes = new AttributeMap();
         }
         return attributes;
     }
@@ -169,4 +306,17 @@ public class BaseTag<
     }
 
     // </editor-fold>
+
+    /**
+     * Compact map of custom attributes which interns names, since JAXB and
+     * readers create new name instance for every attribute of every tag.
+     */
+    private static final class AttributeMap extends CompactMap<QName, Object>
+    {
+
+        @Override
+        public Object put(QName key, Object value) {
+            return super.put(QNamePool.intern(key), value);
+        }
+    }
 }
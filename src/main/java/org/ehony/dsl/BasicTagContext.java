@@ -13,6 +13,7 @@ import java.util.*;
 
 /**
  * {@link HashMap}-backed {@link TagContext}.
+ * <p>Context is not thread-safe, use {@link ConcurrentTagContext} if beans are registered while tags are in use.</p>
  */
 @XmlTransient
 public class BasicTagContext implements TagContext
@@ -25,8 +26,8 @@ public class BasicTagContext implements TagContext
     @XmlTransient
     @SuppressWarnings("unchecked")
     public <T> T getBean(String id, Class<T> type) {
-        if (beans.containsKey(id)) {
-            Object bean = beans.get(id);
+        Object bean = beans.get(id);
+        if (bean != null || beans.containsKey(id)) {
             if (type != null && !type.isInstance(bean)) {
                 throw new IllegalArgumentException("Bean of " + type + " not found: " + id);
             }
@@ -35,6 +36,16 @@ public class BasicTagContext implements TagContext
         throw new IllegalArgumentException("Bean not found: " + id);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> findBean(String id, Class<T> type) {
+        Object bean = beans.get(id);
+        if (type == null || type.isInstance(bean)) {
+            return Optional.ofNullable((T) bean);
+        }
+        return Optional.empty();
+    }
+
     @Override
     @XmlTransient
     public ClassLoader getClassLoader() {
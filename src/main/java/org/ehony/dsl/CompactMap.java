@@ -0,0 +1,303 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import java.util.*;
+
+/**
+ * Map optimized for a few entries.
+ * <p>Up to {@value #THRESHOLD} entries are stored in a single array of interleaved keys and
+ * values and are looked up with linear scan. Larger maps are backed by {@link HashMap}. Empty
+ * map shares array with other empty maps until first entry is put.</p>
+ * <p>Map permits <code>null</code> keys and values and preserves insertion order while it is
+ * small. This class is not thread-safe.</p>
+ *
+ * @param <Key> type of keys.
+ * @param <Value> type of values.
+ */
+public class CompactMap<Key, Value> extends AbstractMap<Key, Value>
+{
+
+    /**
+     * Maximum number of entries stored in array.
+     */
+    static final int THRESHOLD = 8;
+
+    private static final Object[] EMPTY = {};
+
+    private Object[] table = EMPTY;
+    private int size;
+    private HashMap<Key, Value> map;
+
+    /**
+     * Create immutable copy of given map.
+     * <p>Small maps are copied to array of exact size. Copy holds its entries in final fields,
+     * so it can be shared between threads without synchronization.</p>
+     *
+     * @param map map to copy.
+     * @return Immutable map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <Key, Value> Map<Key, Value> freeze(Map<? extends Key, ? extends Value> map) {
+        if (map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (map.size() > THRESHOLD) {
+            return Collections.unmodifiableMap(new HashMap<>(map));
+        }
+        Object[] table = new Object[map.size() << 1];
+        int i = 0;
+        for (Entry<? extends Key, ? extends Value> entry : map.entrySet()) {
+            table[i++] = entry.getKey();
+            table[i++] = entry.getValue();
+        }
+        return new Frozen<>(table);
+    }
+
+    @Override
+    public int size() {
+        return map == null ? size : map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0, n = size << 1; i < n; i += 2) {
+            if (Objects.equals(key, table[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map == null ? indexOf(key) >= 0 : map.containsKey(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Value get(Object key) {
+        if (map != null) {
+            return map.get(key);
+        }
+        int i = indexOf(key);
+        return i < 0 ? null : (Value) table[i + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Value put(Key key, Value value) {
+        if (map != null) {
+            return map.put(key, value);
+        }
+        int i = indexOf(key);
+        if (i >= 0) {
+            Value previous = (Value) table[i + 1];
+            table[i + 1] = value;
+            return previous;
+        }
+        if (size == THRESHOLD) {
+            map = new HashMap<>(THRESHOLD * 4);
+            for (int j = 0; j < THRESHOLD << 1; j += 2) {
+                map.put((Key) table[j], (Value) table[j + 1]);
+            }
+            map.put(key, value);
+            table = EMPTY;
+            size = 0;
+            return null;
+        }
+        if (size << 1 == table.length) {
+            // Most maps hold one or two entries.
+            table = Arrays.copyOf(table, table.length == 0 ? 4 : Math.min(table.length << 1, THRESHOLD << 1));
+        }
+        table[size << 1] = key;
+        table[(size << 1) + 1] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Value remove(Object key) {
+        if (map != null) {
+            return map.remove(key);
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Value previous = (Value) table[i + 1];
+        removeAt(i);
+        return previous;
+    }
+
+    private void removeAt(int i) {
+        int n = size << 1;
+        System.arraycopy(table, i + 2, table, i, n - i - 2);
+        table[n - 2] = null;
+        table[n - 1] = null;
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        map = null;
+        table = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Key, Value>> entrySet() {
+        // View is not cached to keep map small.
+        return new AbstractSet<Entry<Key, Value>>() {
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CompactMap.this.clear();
+            }
+
+            @Override
+            public Iterator<Entry<Key, Value>> iterator() {
+                return map == null ? new ArrayIterator() : map.entrySet().iterator();
+            }
+        };
+    }
+
+    /**
+     * Immutable map of interleaved keys and values.
+     */
+    private static final class Frozen<Key, Value> extends AbstractMap<Key, Value>
+    {
+
+        private final Object[] table;
+
+        Frozen(Object[] table) {
+            this.table = table;
+        }
+
+        @Override
+        public int size() {
+            return table.length >> 1;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < table.length; i += 2) {
+                if (Objects.equals(key, table[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Value get(Object key) {
+            int i = indexOf(key);
+            return i < 0 ? null : (Value) table[i + 1];
+        }
+
+        @Override
+        public Set<Entry<Key, Value>> entrySet() {
+            return new AbstractSet<Entry<Key, Value>>() {
+
+                @Override
+                public int size() {
+                    return Frozen.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<Key, Value>> iterator() {
+                    return new Iterator<Entry<Key, Value>>() {
+
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < table.length;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<Key, Value> next() {
+                            if (next >= table.length) {
+                                throw new NoSuchElementException();
+                            }
+                            next += 2;
+                            return new SimpleImmutableEntry<>((Key) table[next - 2], (Value) table[next - 1]);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterator over entries stored in array.
+     */
+    private final class ArrayIterator implements Iterator<Entry<Key, Value>>
+    {
+
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return map == null && next < size << 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<Key, Value> next() {
+            if (map != null) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size << 1) {
+                throw new NoSuchElementException();
+            }
+            int i = last = next;
+            next += 2;
+            return new SimpleEntry<Key, Value>((Key) table[i], (Value) table[i + 1]) {
+
+                @Override
+                public Value setValue(Value value) {
+                    if (table[i] != getKey() || map != null) {
+                        throw new ConcurrentModificationException();
+                    }
+                    table[i + 1] = value;
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (map != null) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+}
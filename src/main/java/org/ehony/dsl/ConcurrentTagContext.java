@@ -0,0 +1,113 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.ehony.dsl.api.TagContext;
+
+import javax.xml.bind.annotation.XmlTransient;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * {@link ConcurrentHashMap}-backed {@link TagContext} which allows beans to be registered while they are looked up.
+ * <p>Lookups do not lock, require a single hash lookup and do not write shared state, so
+ * concurrent lookups of the same bean do not contend.</p>
+ */
+@XmlTransient
+public class ConcurrentTagContext implements TagContext
+{
+
+    /**
+     * Registered <code>null</code> bean, since map does not permit <code>null</code> values.
+     */
+    private static final Object NULL = new Object();
+
+    @XmlTransient
+    private final ConcurrentMap<String, Object> beans = new ConcurrentHashMap<>();
+
+    @Override
+    @XmlTransient
+    @SuppressWarnings("unchecked")
+    public <T> T getBean(String id, Class<T> type) {
+        Object bean = beans.get(id);
+        if (bean == null) {
+            throw new IllegalArgumentException("Bean not found: " + id);
+        }
+        bean = unwrap(bean);
+        if (type != null && !type.isInstance(bean)) {
+            throw new IllegalArgumentException("Bean of " + type + " not found: " + id);
+        }
+        return (T) bean;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> findBean(String id, Class<T> type) {
+        // Missing and null beans are both absent.
+        Object bean = unwrap(beans.get(id));
+        if (type != null && !type.isInstance(bean)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((T) bean);
+    }
+
+    @Override
+    @XmlTransient
+    public ClassLoader getClassLoader() {
+        return getClass().getClassLoader();
+    }
+
+    /**
+     * Get identifiers of beans registered in current context.
+     * @return Unmodifiable view of identifiers.
+     */
+    @XmlTransient
+    public Set<String> getBeanIds() {
+        return Collections.unmodifiableSet(beans.keySet());
+    }
+
+    /**
+     * Register bean in current context, replacing bean with the same identifier.
+     *
+     * @param id nonempty identifier.
+     * @param bean bean instance.
+     * @return Replaced bean or <code>null</code> if there was no bean with given identifier.
+     */
+    public Object putBean(String id, Object bean) {
+        return unwrap(beans.put(id, bean == null ? NULL : bean));
+    }
+
+    /**
+     * Remove bean from current context.
+     *
+     * @param id bean identifier.
+     * @return Removed bean or <code>null</code> if there was no bean with given identifier.
+     */
+    public Object removeBean(String id) {
+        return unwrap(beans.remove(id));
+    }
+
+    // <editor-fold desc="Fluent API">
+
+    /**
+     * Registers new bean in current context.
+     *
+     * @param id nonempty identifier.
+     * @param bean bean instance.
+     * @return Original {@link ConcurrentTagContext} instance.
+     */
+    public ConcurrentTagContext bean(String id, Object bean) {
+        putBean(id, bean);
+        return this;
+    }
+
+    // </editor-fold>
+
+    private static Object unwrap(Object bean) {
+        return bean == NULL ? null : bean;
+    }
+}
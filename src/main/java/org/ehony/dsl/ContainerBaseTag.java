@@ -9,7 +9,7 @@ package org.ehony.dsl;
 import org.ehony.dsl.api.*;
 
 import javax.xml.bind.annotation.XmlTransient;
-import java.util.List;
+import java.util.*;
 import static java.util.stream.Collectors.*;
 
 @XmlTransient
@@ -21,10 +21,30 @@ public class ContainerBaseTag<
         implements ContainerTag<Type, Parent>
 {
 
+    /**
+     * Does class override {@link Tag#freeze()} which is not supported by default.
+     */
+    private static final ClassValue<Boolean> FREEZABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("freeze").getDeclaringClass() != Tag.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     @XmlTransient
     @SuppressWarnings("unchecked")
     private List<Tag<Type>> children = new TagChildren<>((Type) this);
 
+    /**
+     * Identifier index of tree rooted at this container, <code>null</code> until first lookup.
+     */
+    @XmlTransient
+    TagIdIndex index;
+
     @Override
     @XmlTransient
     @SuppressWarnings("unchecked")
@@ -32,6 +52,116 @@ public class ContainerBaseTag<
         return (List) children;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>Children are frozen and stored in immutable list of exact size. Subtree is checked before
+     * any tag is frozen, so if some descendant does not support freezing the tree is left intact.</p>
+     * @exception UnsupportedOperationException if any descendant does not support freezing.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void freeze() {
+        if (isFrozen()) {
+            return;
+        }
+        if (!(getParentTag() instanceof ContainerBaseTag)) {
+            // Nested containers are frozen by their parent which has already checked them.
+            ensureFreezable();
+        }
+        super.freeze();
+        Tag<Type>[] array = children.toArray(new Tag[children.size()]);
+        for (Tag<Type> tag : array) {
+            tag.freeze();
+        }
+        children = Collections.unmodifiableList(Arrays.asList(array));
+        if (getParentTag() == null) {
+            // Frozen tree may be shared, so index is not built lazily.
+            index = TagIdIndex.build(this);
+        }
+    }
+
+    private void ensureFreezable() {
+        Deque<Tag<?>> stack = new ArrayDeque<>(children);
+        while (!stack.isEmpty()) {
+            Tag<?> tag = stack.pop();
+            if (tag.isFrozen()) {
+                continue;
+            }
+            if (!FREEZABLE.get(tag.getClass())) {
+                throw new UnsupportedOperationException("Tag cannot be frozen: " + tag.getTagName());
+            }
+            if (tag instanceof ContainerTag) {
+                stack.addAll(((ContainerTag<?, ?>) tag).getChildren());
+            }
+        }
+    }
+
+    /**
+     * Find tag with given identifier in subtree of this container, similar to DOM <code>getElementById</code>.
+     * <p>Root of the tree keeps index of identifiers which is built on the first lookup and then
+     * updated as tags are attached, detached or change their identifiers, so lookup does not
+     * traverse the tree. If several tags share identifier, one of them is returned, use
+     * {@link #getTagsById(String)} or {@link #getDuplicateIds()} to detect such tags.</p>
+     *
+     * @param id identifier to look up.
+     * @return Tag with identifier or <code>null</code> if there is no such tag.
+     */
+    public Tag<?> getTagById(String id) {
+        List<Tag<?>> tags = getTagsById(id);
+        return tags.isEmpty() ? null : tags.get(0);
+    }
+
+    /**
+     * Find all tags with given identifier in subtree of this container.
+     *
+     * @param id identifier to look up.
+     * @return Unmodifiable list of tags, empty if there is no such tag.
+     */
+    public List<Tag<?>> getTagsById(String id) {
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        List<Tag<?>> tags = getIndex().getAll(id);
+        if (getParentTag() == null) {
+            return tags;
+        }
+        // Index belongs to root, so tags outside of this subtree are filtered out.
+        List<Tag<?>> result = new ArrayList<>(tags.size());
+        for (Tag<?> tag : tags) {
+            for (Tag<?> ancestor = tag; ancestor != null; ancestor = ancestor.getParentTag()) {
+                if (ancestor == this) {
+                    result.add(tag);
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Get identifiers shared by several tags of the tree this container belongs to.
+     * @return Unmodifiable live set of identifiers.
+     */
+    @XmlTransient
+    public Set<String> getDuplicateIds() {
+        return getIndex().getDuplicates();
+    }
+
+    private TagIdIndex getIndex() {
+        TagIdIndex index = TagIdIndex.of(this);
+        if (index == null) {
+            Tag<?> root = this;
+            while (root.getParentTag() != null) {
+                root = root.getParentTag();
+            }
+            index = TagIdIndex.build(root);
+            if (root instanceof ContainerBaseTag) {
+                ((ContainerBaseTag<?, ?>) root).index = index;
+            }
+        }
+        return index;
+    }
+
     protected StringBuilder getDebugInfo() {
         StringBuilder out = super.getDebugInfo();
         out.append("\nchildren = [");
@@ -0,0 +1,231 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.ehony.dsl.api.*;
+
+import java.util.*;
+
+/**
+ * Read-only index of tag tree stored in parallel arrays.
+ * <p>Tags are numbered in pre-order, so root has index <code>0</code> and subtree of a tag occupies
+ * contiguous range of indices starting with the tag itself. Parent, first child, next sibling,
+ * depth and subtree size of each tag are stored in <code>int</code> arrays, so traversals and
+ * ancestor checks neither follow references between tags nor allocate:</p>
+ * <pre>
+ * FlatTagTree tree = FlatTagTree.of(car);
+ * for (int i = tree.indexOf(engine), end = tree.getSubtreeEnd(i); i &lt; end; i++) {
+ *     process(tree.getTag(i));
+ * }
+ * </pre>
+ * <p>Index reflects the tree at the moment of its creation and is not updated when tree changes,
+ * so it is best built from {@linkplain Tag#freeze() frozen} trees. Index is immutable and thread-safe.</p>
+ */
+public final class FlatTagTree
+{
+
+    /**
+     * Index returned when there is no such tag.
+     */
+    public static final int NONE = -1;
+
+    private final Tag<?>[] tags;
+    private final int[] parents;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] depths;
+    private final int[] sizes;
+    private final Map<Tag<?>, Integer> indices;
+
+    private FlatTagTree(Tag<?>[] tags, int[] parents, int[] firstChildren, int[] nextSiblings, int[] depths, int[] sizes) {
+        this.tags = tags;
+        this.parents = parents;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.depths = depths;
+        this.sizes = sizes;
+        indices = new IdentityHashMap<>(tags.length);
+        for (int i = 0; i < tags.length; i++) {
+            indices.put(tags[i], i);
+        }
+    }
+
+    /**
+     * Build index of tree rooted at given tag.
+     *
+     * @param root root of indexed tree, it may have a parent which is not indexed.
+     * @return Index of tree.
+     */
+    public static FlatTagTree of(Tag<?> root) {
+        int capacity = 16;
+        Tag<?>[] tags = new Tag<?>[capacity];
+        int[] parents = new int[capacity];
+        int size = 0;
+
+        // Pre-order traversal with explicit stack, since trees may be deep.
+        Deque<Tag<?>> stack = new ArrayDeque<>();
+        int[] stackParents = new int[capacity];
+        stack.push(root);
+        stackParents[0] = NONE;
+        while (!stack.isEmpty()) {
+            Tag<?> tag = stack.pop();
+            int parent = stackParents[stack.size()];
+            if (size == capacity) {
+                capacity <<= 1;
+                tags = Arrays.copyOf(tags, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+            }
+            tags[size] = tag;
+            parents[size] = parent;
+            if (tag instanceof ContainerTag) {
+                List<? extends Tag<?>> children = ((ContainerTag<?, ?>) tag).getChildren();
+                if (stack.size() + children.size() > stackParents.length) {
+                    stackParents = Arrays.copyOf(stackParents, Math.max(stackParents.length << 1, stack.size() + children.size()));
+                }
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stackParents[stack.size()] = size;
+                    stack.push(children.get(i));
+                }
+            }
+            size++;
+        }
+        tags = Arrays.copyOf(tags, size);
+        parents = Arrays.copyOf(parents, size);
+
+        int[] firstChildren = new int[size];
+        int[] nextSiblings = new int[size];
+        int[] lastChildren = new int[size];
+        int[] depths = new int[size];
+        int[] sizes = new int[size];
+        Arrays.fill(firstChildren, NONE);
+        Arrays.fill(nextSiblings, NONE);
+        for (int i = 1; i < size; i++) {
+            int parent = parents[i];
+            if (firstChildren[parent] == NONE) {
+                firstChildren[parent] = i;
+            } else {
+                nextSiblings[lastChildren[parent]] = i;
+            }
+            lastChildren[parent] = i;
+            depths[i] = depths[parent] + 1;
+        }
+        // Parents precede their descendants, so subtree sizes are accumulated backwards.
+        for (int i = size - 1; i >= 0; i--) {
+            sizes[i]++;
+            if (i > 0) {
+                sizes[parents[i]] += sizes[i];
+            }
+        }
+        return new FlatTagTree(tags, parents, firstChildren, nextSiblings, depths, sizes);
+    }
+
+    /**
+     * Get number of indexed tags.
+     */
+    public int size() {
+        return tags.length;
+    }
+
+    /**
+     * Get tag with given index.
+     * @param index index of tag.
+     */
+    public Tag<?> getTag(int index) {
+        return tags[index];
+    }
+
+    /**
+     * Get index of given tag.
+     *
+     * @param tag tag to look up.
+     * @return Index of tag or {@link #NONE} if tag is not indexed.
+     */
+    public int indexOf(Tag<?> tag) {
+        Integer index = indices.get(tag);
+        return index == null ? NONE : index;
+    }
+
+    /**
+     * Get index of parent tag.
+     *
+     * @param index index of tag.
+     * @return Index of parent or {@link #NONE} for root.
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * Get index of the first child of tag.
+     *
+     * @param index index of tag.
+     * @return Index of the first child or {@link #NONE} if tag has no children.
+     */
+    public int getFirstChild(int index) {
+        return firstChildren[index];
+    }
+
+    /**
+     * Get index of the next sibling of tag.
+     *
+     * @param index index of tag.
+     * @return Index of the next sibling or {@link #NONE} if tag is the last child or root.
+     */
+    public int getNextSibling(int index) {
+        return nextSiblings[index];
+    }
+
+    /**
+     * Get depth of tag, root has depth <code>0</code>.
+     * @param index index of tag.
+     */
+    public int getDepth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Get number of tags in subtree of tag including tag itself.
+     * @param index index of tag.
+     */
+    public int getSubtreeSize(int index) {
+        return sizes[index];
+    }
+
+    /**
+     * Get index following the last descendant of tag.
+     * <p>Subtree of tag occupies range from <code>index</code> inclusive to returned index exclusive.</p>
+     *
+     * @param index index of tag.
+     * @return Exclusive end of subtree range.
+     */
+    public int getSubtreeEnd(int index) {
+        return index + sizes[index];
+    }
+
+    /**
+     * Is the first tag a proper ancestor of the second one.
+     *
+     * @param ancestor index of possible ancestor.
+     * @param index index of possible descendant.
+     * @return <code>true</code> if <code>index</code> belongs to subtree of <code>ancestor</code> and differs from it.
+     */
+    public boolean isAncestor(int ancestor, int index) {
+        return ancestor < index && index < ancestor + sizes[ancestor];
+    }
+
+    /**
+     * Get index of the next tag in pre-order traversal of subtree.
+     * <p>Traversal skipping subtrees can be done with {@link #getSubtreeEnd(int)}.</p>
+     *
+     * @param root index of traversed subtree root.
+     * @param index index of current tag.
+     * @return Index of the next tag or {@link #NONE} if subtree is traversed.
+     */
+    public int next(int root, int index) {
+        return ++index < root + sizes[root] ? index : NONE;
+    }
+}
@@ -6,26 +6,97 @@
  */
 package org.ehony.dsl;
 
+import org.ehony.dsl.annotation.Accessor;
+import org.ehony.dsl.annotation.AnnotationVisitor;
 import org.ehony.dsl.annotation.Processor;
-import org.ehony.dsl.api.ContainerTag;
-import org.ehony.dsl.api.Tag;
+import org.ehony.dsl.api.*;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
-import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.lang.reflect.*;
+import java.util.*;
 
+/**
+ * Appends tags referenced by {@link NestedTag} fields and methods to processed container.
+ * <p>Members are read via {@link Accessor accessors} instead of reflective calls.
+ * Members which hold <code>null</code> are ignored.</p>
+ */
 public class NestedTagProcessor implements Processor<ContainerTag> {
+
+    /**
+     * Wiring strategies of container types: generated at compile time or reflective.
+     */
+    private static final ClassValue<NestedTagWiring> WIRINGS = new ClassValue<NestedTagWiring>() {
+
+        @Override
+        protected NestedTagWiring computeValue(Class<?> type) {
+            try {
+                Class<?> wiring = Class.forName(type.getName() + NestedTagWiring.SUFFIX, true, type.getClassLoader());
+                if (NestedTagWiring.class.isAssignableFrom(wiring)) {
+                    return (NestedTagWiring) wiring.getConstructor().newInstance();
+                }
+            } catch (ClassNotFoundException e) {
+                // Wiring was not generated for this type.
+            } catch (ReflectiveOperationException | LinkageError e) {
+                throw new IllegalStateException("Cannot instantiate nested tag wiring of " + type, e);
+            }
+            return new Accessors(type);
+        }
+    };
+
+    /**
+     * Append tags referenced by {@link NestedTag} members of given container to its children.
+     * <p>Uses {@link NestedTagWiring} generated at compile time when available for container
+     * type, otherwise members found by {@link AnnotationVisitor} are resolved to accessors once per type.</p>
+     *
+     * @param tag container to process.
+     */
+    @SuppressWarnings("unchecked")
+    public static void wire(ContainerTag tag) {
+        WIRINGS.get(tag.getClass()).wire(tag);
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     public void process(Annotation annotation, ContainerTag target, AnnotatedElement element, ElementType elementType, Class<? super ContainerTag> type) throws Exception {
         switch (elementType) {
             case METHOD:
-                target.appendChild((Tag) ((Method) element).invoke(target));
-                break;
             case FIELD:
-                target.appendChild((Tag) ((Field) element).get(target));
+                Tag tag = (Tag) Accessor.of(element).get(target);
+                if (tag != null) {
+                    target.appendChild(tag);
+                }
                 break;
         }
     }
+
+    /**
+     * Reflective wiring reading nested tag members of container type with accessors resolved up front.
+     */
+    private static final class Accessors implements NestedTagWiring<ContainerTag>
+    {
+
+        private final Accessor[] accessors;
+
+        Accessors(Class<?> type) {
+            List<Accessor> accessors = new ArrayList<>();
+            for (AnnotatedElement element : AnnotationVisitor.getAnnotatedElements(type, NestedTag.class)) {
+                if (element instanceof Field || element instanceof Method) {
+                    accessors.add(Accessor.of(element));
+                }
+            }
+            this.accessors = accessors.toArray(new Accessor[accessors.size()]);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void wire(ContainerTag tag) {
+            for (Accessor accessor : accessors) {
+                Tag child = (Tag) accessor.get(tag);
+                if (child != null) {
+                    tag.appendChild(child);
+                }
+            }
+        }
+    }
 }
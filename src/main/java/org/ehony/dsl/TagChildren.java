@@ -10,6 +10,7 @@ import org.ehony.dsl.api.*;
 
 import javax.xml.bind.annotation.XmlTransient;
 import java.util.*;
+import java.util.function.*;
 
 /**
  * List of tags which ensure that all its items have the same parent.
@@ -18,6 +19,14 @@ import java.util.*;
  * are done via corresponding basic methods, ex. {@link List#add(Object)} invokes
  * {@link List#add(int, Object)} under the hood.</p>
  * <p>List throws exceptions when <code>null</code> values are inserted.</p>
+ * <p>Bulk operations, such as {@link #addAll(int, Collection)}, {@link #removeIf(Predicate)},
+ * {@link #replaceAll(UnaryOperator)} and {@link #clear()}, shift list only once, configure
+ * all added tags and then update their parents in a single sweep.</p>
+ * <p>Membership and position of tags are resolved by identity via positions index,
+ * so {@link #contains(Object)}, {@link #indexOf(Object)} and {@link #remove(Object)}
+ * do not scan the list and never invoke {@link Object#equals(Object)}. Insertion or removal
+ * renumbers either preceding or following tags, whichever are fewer, so changes at both ends
+ * of the list take constant time.</p>
  */
 @XmlTransient
 public class TagChildren<
@@ -29,6 +38,15 @@ public class TagChildren<
 
     private Parent parent;
     private List<Child> list = new ArrayList<>();
+    /**
+     * Identity-based positions of children in {@link #list} offset by {@link #base}.
+     */
+    private Map<Child, Integer> positions = new IdentityHashMap<>();
+    private int base;
+    /**
+     * Tag which parent is being assigned by this list.
+     */
+    private Child attaching;
 
     /**
      * Creates new list of container children.
@@ -56,6 +74,44 @@ public class TagChildren<
         return list.size();
     }
 
+    @Override
+    public boolean contains(Object tag) {
+        return positions.containsKey(tag);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Tags are compared by identity.</p>
+     */
+    @Override
+    public int indexOf(Object tag) {
+        Integer position = positions.get(tag);
+        return position == null ? -1 : position - base;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Tags are compared by identity, so result is the same as of {@link #indexOf(Object)}.</p>
+     */
+    @Override
+    public int lastIndexOf(Object tag) {
+        return indexOf(tag);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Detaches tag from container.
+     */
+    @Override
+    public boolean remove(Object tag) {
+        int index = indexOf(tag);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
     /**
      * Set tag as a child at given position for this container.
      * <p>When given tag is already a child of this container it is moved
@@ -95,19 +151,26 @@ public class TagChildren<
         if (offset > size  || offset < 0) {
             throw new IndexOutOfBoundsException("Index " + offset + " out of range [0, " + size + "]");
         }
-        int index = list.indexOf(tag);
+        int index = indexOf(tag);
+        if (index >= 0 && tag == attaching) {
+            // Tag being attached by this list appends itself to parent children.
+            return;
+        }
+        if (tag != null && tag.isFrozen()) {
+            throw new IllegalStateException("Frozen tag cannot be attached: " + tag.getTagName());
+        }
         if (index != offset) {
             if (index >= 0) {
                 if (index < offset) {
                     offset--;
                 }
-                list.remove(index);
+                detach(index);
             }
-            list.add(offset, tag);
+            attach(offset, tag);
             if (index < 0 && tag != null) {
                 // Omit tag configuration if only rearrangement required.
                 parent.configureChild(tag);
-                tag.setParentTag(parent);
+                adopt(tag);
             }
         }
     }
@@ -119,10 +182,251 @@ public class TagChildren<
      */
     @Override
     public Child remove(int index) {
-        Child tag = list.remove(index);
+        Child tag = detach(index);
         if (tag != null) {
             tag.setParentTag(null);
         }
         return tag;
     }
+
+    @Override
+    public boolean addAll(Collection<? extends Child> tags) {
+        return addAll(list.size(), tags);
+    }
+
+    /**
+     * Insert provided tags as children starting at given offset.
+     * <p>Result is the same as of sequential {@link #add(int, Object)} invocations. When all tags
+     * are distinct and none of them is a child of this container already, list is shifted once,
+     * then {@link ContainerTag#configureChild(Tag)} is invoked for each tag and after that tags
+     * are detached from their previous parents and attached to this container. If configuration
+     * of any tag fails, none of tags is inserted.</p>
+     * {@inheritDoc}
+     *
+     * @param offset index at which the first tag is to be inserted.
+     * @param tags tags to be inserted.
+     */
+    @Override
+    public boolean addAll(int offset, Collection<? extends Child> tags) {
+        int size = list.size();
+        if (offset > size  || offset < 0) {
+            throw new IndexOutOfBoundsException("Index " + offset + " out of range [0, " + size + "]");
+        }
+        List<Child> batch = new ArrayList<>(tags);
+        if (batch.size() < 2 || !isDetached(batch)) {
+            // Rearrangements are rare, so they are processed one by one.
+            return super.addAll(offset, batch);
+        }
+        list.addAll(offset, batch);
+        shift(offset, batch.size(), 0);
+        try {
+            for (Child tag : batch) {
+                if (tag != null) {
+                    parent.configureChild(tag);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            // None of tags is adopted yet, so the list is restored as if batch was never inserted.
+            list.subList(offset, offset + batch.size()).clear();
+            for (Child tag : batch) {
+                positions.remove(tag);
+            }
+            shift(offset, 0, batch.size());
+            throw e;
+        }
+        for (Child tag : batch) {
+            adopt(tag);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Matching tags are removed with a single pass over the list and then detached from container.</p>
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Child> filter) {
+        List<Child> kept = new ArrayList<>(list.size());
+        List<Child> removed = new ArrayList<>();
+        int first = -1;
+        for (int i = 0, size = list.size(); i < size; i++) {
+            Child tag = list.get(i);
+            if (filter.test(tag)) {
+                if (first < 0) {
+                    first = i;
+                }
+                removed.add(tag);
+            } else {
+                kept.add(tag);
+            }
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+        list = kept;
+        for (Child tag : removed) {
+            positions.remove(tag);
+        }
+        for (int i = first, size = list.size(); i < size; i++) {
+            positions.put(list.get(i), base + i);
+        }
+        release(removed);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> tags) {
+        return removeIf(tags::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> tags) {
+        return removeIf(tag -> !tags.contains(tag));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Result is the same as of sequential {@link #set(int, Object)} invocations. When all
+     * replacements are distinct and none of them is a child of this container already, tags are
+     * replaced in-place, then all new tags are configured and attached and after that replaced
+     * tags are detached from container.</p>
+     */
+    @Override
+    public void replaceAll(UnaryOperator<Child> operator) {
+        int size = list.size();
+        List<Child> batch = new ArrayList<>(size);
+        BitSet changed = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            Child before = list.get(i);
+            Child tag = operator.apply(before);
+            if (tag != before && (tag == null || !tag.equals(before))) {
+                changed.set(i);
+            }
+            batch.add(tag);
+        }
+        List<Child> added = new ArrayList<>(changed.cardinality());
+        changed.stream().forEach(i -> added.add(batch.get(i)));
+        if (!isDetached(added)) {
+            changed.stream().forEach(i -> set(i, batch.get(i)));
+            return;
+        }
+        List<Child> removed = new ArrayList<>(added.size());
+        changed.stream().forEach(i -> {
+            Child tag = batch.get(i);
+            Child before = list.set(i, tag);
+            positions.remove(before);
+            positions.put(tag, base + i);
+            removed.add(before);
+            if (tag != null) {
+                parent.configureChild(tag);
+            }
+        });
+        added.forEach(this::adopt);
+        release(removed);
+    }
+
+    @Override
+    public void clear() {
+        removeRange(0, list.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Tags are removed with a single shift of the list and then detached from container.</p>
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        List<Child> range = list.subList(fromIndex, toIndex);
+        List<Child> removed = new ArrayList<>(range);
+        range.clear();
+        for (Child tag : removed) {
+            positions.remove(tag);
+        }
+        shift(fromIndex, 0, removed.size());
+        release(removed);
+    }
+
+    /**
+     * Check that all given tags are distinct and none of them is a child of this container.
+     */
+    private boolean isDetached(List<Child> tags) {
+        Map<Child, Boolean> seen = new IdentityHashMap<>(tags.size());
+        for (Child tag : tags) {
+            // Frozen tags are rejected by sequential insertion before list is modified.
+            if (positions.containsKey(tag) || seen.put(tag, Boolean.TRUE) != null || (tag != null && tag.isFrozen())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Assign parent to a tag which was already inserted to underlying list.
+     */
+    private void adopt(Child tag) {
+        if (tag != null) {
+            Child previous = attaching;
+            attaching = tag;
+            try {
+                tag.setParentTag(parent);
+            } finally {
+                attaching = previous;
+            }
+        }
+    }
+
+    /**
+     * Reset parent of tags which were already removed from underlying list.
+     */
+    private void release(List<Child> tags) {
+        for (Child tag : tags) {
+            if (tag != null) {
+                tag.setParentTag(null);
+            }
+        }
+    }
+
+    /**
+     * Insert tag into underlying list and update positions index.
+     */
+    private void attach(int offset, Child tag) {
+        list.add(offset, tag);
+        shift(offset, 1, 0);
+    }
+
+    /**
+     * Remove tag from underlying list and update positions index.
+     */
+    private Child detach(int index) {
+        Child tag = list.remove(index);
+        positions.remove(tag);
+        shift(index, 0, 1);
+        return tag;
+    }
+
+    /**
+     * Update positions index after tags were inserted to or removed from underlying list at given offset.
+     * <p>Either tags preceding offset are renumbered along with {@link #base}, or tags following
+     * inserted ones are, whichever are fewer. Positions of inserted tags are assigned afterwards.</p>
+     *
+     * @param offset index of the first inserted or removed tag.
+     * @param inserted number of tags inserted at offset.
+     * @param removed number of tags removed at offset.
+     */
+    private void shift(int offset, int inserted, int removed) {
+        int size = list.size(), tail = offset + inserted;
+        if (offset < size - tail) {
+            base += removed - inserted;
+            for (int i = 0; i < offset; i++) {
+                positions.put(list.get(i), base + i);
+            }
+        } else if (inserted != removed) {
+            for (int i = tail; i < size; i++) {
+                positions.put(list.get(i), base + i);
+            }
+        }
+        for (int i = offset; i < tail; i++) {
+            positions.put(list.get(i), base + i);
+        }
+    }
 }
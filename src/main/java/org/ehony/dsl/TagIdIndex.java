@@ -0,0 +1,168 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.ehony.dsl.api.*;
+
+import java.util.*;
+
+/**
+ * Index of tags by their {@link Identifiable#getId() identifiers} owned by root container.
+ * <p>Index is created on the first lookup and then updated by {@link BaseTag} whenever tags are
+ * attached to or detached from indexed tree or their identifiers change. Identifiers of tags which
+ * are not {@link BaseTag} instances are indexed, but their changes are not tracked.</p>
+ *
+ * @see ContainerBaseTag#getTagById(String)
+ */
+final class TagIdIndex
+{
+
+    /**
+     * Tags by identifier, value is either a tag or a list of tags sharing identifier.
+     */
+    private final Map<String, Object> tags = new HashMap<>();
+    private final Set<String> duplicates = new LinkedHashSet<>();
+
+    /**
+     * Create index of tree rooted at given tag.
+     */
+    static TagIdIndex build(Tag<?> root) {
+        TagIdIndex index = new TagIdIndex();
+        index.addAll(root);
+        return index;
+    }
+
+    /**
+     * Get index of tree given tag belongs to.
+     * @return Index or <code>null</code> if root does not maintain index.
+     */
+    static TagIdIndex of(Tag<?> tag) {
+        Tag<?> root = tag;
+        for (Tag<?> parent = tag.getParentTag(); parent != null; parent = parent.getParentTag()) {
+            root = parent;
+        }
+        return root instanceof ContainerBaseTag ? ((ContainerBaseTag<?, ?>) root).index : null;
+    }
+
+    /**
+     * Get one of tags with given identifier.
+     */
+    Tag<?> get(String id) {
+        Object value = tags.get(id);
+        if (value instanceof List) {
+            return (Tag<?>) ((List<?>) value).get(0);
+        }
+        return (Tag<?>) value;
+    }
+
+    /**
+     * Get all tags with given identifier.
+     */
+    @SuppressWarnings("unchecked")
+    List<Tag<?>> getAll(String id) {
+        Object value = tags.get(id);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (value instanceof List) {
+            return Collections.unmodifiableList((List<Tag<?>>) value);
+        }
+        return Collections.singletonList((Tag<?>) value);
+    }
+
+    /**
+     * Get identifiers shared by several tags.
+     */
+    Set<String> getDuplicates() {
+        return Collections.unmodifiableSet(duplicates);
+    }
+
+    /**
+     * Update identifier of indexed tag.
+     */
+    void update(Tag<?> tag, String previous, String id) {
+        remove(previous, tag);
+        add(id, tag);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(String id, Tag<?> tag) {
+        if (id == null) {
+            return;
+        }
+        Object value = tags.putIfAbsent(id, tag);
+        if (value == null) {
+            return;
+        }
+        if (value instanceof List) {
+            ((List<Tag<?>>) value).add(tag);
+        } else {
+            List<Tag<?>> list = new ArrayList<>(2);
+            list.add((Tag<?>) value);
+            list.add(tag);
+            tags.put(id, list);
+        }
+        duplicates.add(id);
+    }
+
+    private void remove(String id, Tag<?> tag) {
+        if (id == null) {
+            return;
+        }
+        Object value = tags.get(id);
+        if (value == tag) {
+            tags.remove(id);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) == tag) {
+                    list.remove(i);
+                    break;
+                }
+            }
+            if (list.size() == 1) {
+                tags.put(id, list.get(0));
+                duplicates.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Add identifiers of all tags in subtree.
+     */
+    void addAll(Tag<?> root) {
+        walk(root, true);
+    }
+
+    /**
+     * Remove identifiers of all tags in subtree.
+     */
+    void removeAll(Tag<?> root) {
+        walk(root, false);
+    }
+
+    private void walk(Tag<?> root, boolean add) {
+        Deque<Tag<?>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Tag<?> tag = stack.pop();
+            if (tag instanceof Identifiable) {
+                String id = ((Identifiable<?>) tag).getId();
+                if (add) {
+                    add(id, tag);
+                } else {
+                    remove(id, tag);
+                }
+            }
+            if (tag instanceof ContainerTag) {
+                for (Tag<?> child : ((ContainerTag<?, ?>) tag).getChildren()) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.w3c.dom.Node;
+
+import javax.xml.bind.*;
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Process-wide cache of {@link JAXBContext} instances along with pools of their {@link Unmarshaller unmarshallers}.
+ * <p>Contexts are cached by class loader and classpath they were created with. Class loaders are
+ * referenced weakly, and since cached context references classes of its loader, pools are held
+ * weakly too: pool lives as long as anybody uses it, so cache does not prevent class loader from
+ * being collected, ex. when OSGi bundle is refreshed.</p>
+ * <p>Unmarshallers are not thread-safe, so each thread borrows its own instance from the pool
+ * for the time of unmarshalling.</p>
+ */
+public final class UnmarshallerPool
+{
+
+    private static final Map<ClassLoader, Map<String, Reference<UnmarshallerPool>>> POOLS = new WeakHashMap<>();
+
+    private final JAXBContext context;
+    private final BlockingQueue<Unmarshaller> idle = new ArrayBlockingQueue<>(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    private UnmarshallerPool(JAXBContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Get shared pool for given classpath loaded with class loader of given type.
+     *
+     * @param type tag type which class loader is used to load classes from classpath.
+     * @param classpath colon-separated list of packages for JAXB to load.
+     * @return Pool of unmarshallers.
+     * @throws JAXBException if JAXB context cannot be created.
+     * @see #of(ClassLoader, String)
+     */
+    public static UnmarshallerPool of(Class<?> type, String classpath) throws JAXBException {
+        return of(type.getClassLoader(), classpath);
+    }
+
+    /**
+     * Get shared pool for given classpath.
+     * <p>Callers are expected to keep returned pool, since it may be collected when it is not used.</p>
+     *
+     * @param loader class loader used to load classes from classpath.
+     * @param classpath colon-separated list of packages for JAXB to load.
+     * @return Pool of unmarshallers.
+     * @throws JAXBException if JAXB context cannot be created.
+     */
+    public static UnmarshallerPool of(ClassLoader loader, String classpath) throws JAXBException {
+        Map<String, Reference<UnmarshallerPool>> pools;
+        synchronized (POOLS) {
+            pools = POOLS.computeIfAbsent(loader, key -> new HashMap<>());
+        }
+        // Creation of JAXB context is expensive, so it is done at most once per loader and classpath.
+        synchronized (pools) {
+            Reference<UnmarshallerPool> reference = pools.get(classpath);
+            UnmarshallerPool pool = reference == null ? null : reference.get();
+            if (pool == null) {
+                pool = new UnmarshallerPool(JAXBContext.newInstance(classpath, loader));
+                pools.put(classpath, new WeakReference<>(pool));
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Get JAXB context shared by unmarshallers of this pool.
+     */
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * Unmarshal XML data from the specified DOM tree with pooled unmarshaller.
+     *
+     * @param node node to unmarshal from.
+     * @return Newly created root object of the Java content tree.
+     * @throws JAXBException if unexpected errors occur during unmarshalling.
+     */
+    public Object unmarshal(Node node) throws JAXBException {
+        Unmarshaller mapper = idle.poll();
+        if (mapper == null) {
+            mapper = context.createUnmarshaller();
+        }
+        try {
+            return mapper.unmarshal(node);
+        } finally {
+            // Excessive unmarshallers are discarded.
+            idle.offer(mapper);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.annotation;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link MethodHandle}-based reader of field or no-argument method value.
+ * <p>Accessors are created once per class member and cached along with its declaring class,
+ * so repeated reads neither re-check access nor box arguments like reflective calls do.
+ * Looking accessor up is not free though, callers are expected to resolve accessors when
+ * binding a class and keep them, as {@link org.ehony.dsl.NestedTagProcessor#wire} does.</p>
+ */
+public final class Accessor
+{
+
+    private static final ClassValue<Map<Member, Accessor>> ACCESSORS = new ClassValue<Map<Member, Accessor>>() {
+
+        @Override
+        protected Map<Member, Accessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final MethodHandle getter;
+
+    private Accessor(MethodHandle getter) {
+        this.getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+    }
+
+    /**
+     * Get cached accessor for given element.
+     * <p>Intended to be called once per element when binding its class rather than on every read.</p>
+     *
+     * @param element non-static field or method without parameters.
+     * @return Accessor reading value of element.
+     * @exception IllegalArgumentException element cannot be read.
+     */
+    public static Accessor of(AnnotatedElement element) {
+        if (!(element instanceof Field || element instanceof Method)) {
+            throw new IllegalArgumentException("Field or method expected: " + element);
+        }
+        Member member = (Member) element;
+        return ACCESSORS.get(member.getDeclaringClass()).computeIfAbsent(member, Accessor::create);
+    }
+
+    private static Accessor create(Member member) {
+        if (Modifier.isStatic(member.getModifiers())) {
+            throw new IllegalArgumentException("Non-static member expected: " + member);
+        }
+        AccessibleObject object = (AccessibleObject) member;
+        if (!object.isAccessible()) {
+            try {
+                object.setAccessible(true);
+            } catch (SecurityException e) {
+                // Public members are still accessible.
+            }
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            if (member instanceof Field) {
+                return new Accessor(lookup.unreflectGetter((Field) member));
+            }
+            Method method = (Method) member;
+            if (method.getParameterCount() != 0) {
+                throw new IllegalArgumentException("Method without parameters expected: " + method);
+            }
+            return new Accessor(lookup.unreflect(method));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Member is not accessible: " + member, e);
+        }
+    }
+
+    /**
+     * Read value of the element from given object.
+     *
+     * @param target object to read value from.
+     * @return Field value or method invocation result.
+     */
+    public Object get(Object target) {
+        try {
+            return getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+}
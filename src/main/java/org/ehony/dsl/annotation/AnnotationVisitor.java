@@ -15,10 +15,40 @@ import java.util.*;
 import static java.util.Arrays.*;
 import static java.util.function.Predicate.*;
 
+/**
+ * Dispatches annotations found in class hierarchy of processed objects to bound processors.
+ * <p>Class hierarchy is introspected once per class: annotations found in it are cached along
+ * with processors they are dispatched to, so subsequent {@link #process(Object)} invocations
+ * for objects of the same class do not use reflection.</p>
+ *
+ * @param <Type> type of objects to introspect annotations at.
+ */
 public class AnnotationVisitor<Type> {
 
+    /**
+     * Annotations declared in class hierarchy in order they are processed, shared by all visitors.
+     */
+    private static final ClassValue<Step[]> STEPS = new ClassValue<Step[]>() {
+
+        @Override
+        protected Step[] computeValue(Class<?> type) {
+            List<Step> out = new ArrayList<>();
+            for (Class<?> c : type.getInterfaces()) {
+                out.addAll(asList(get(c)));
+            }
+            if (type.getSuperclass() != null) {
+                out.addAll(asList(get(type.getSuperclass())));
+            }
+            stream(type.getDeclaredFields()).forEach(f -> collect(out, f, FIELD, type));
+            stream(type.getDeclaredMethods()).forEach(m -> collect(out, m, METHOD, type));
+            collect(out, type, TYPE, type);
+            return out.toArray(new Step[out.size()]);
+        }
+    };
+
     private Map<Class<?>, Processor<Type>> processors = new HashMap<>();
     private Set<ElementType> targets = new HashSet<>();
+    private ClassValue<Step[]> plans = createPlans();
 
     public void bindProcessor(Class<? extends Annotation> type, Processor<Type> processor) {
         Target target = type.getAnnotation(Target.class);
@@ -28,33 +58,78 @@ public class AnnotationVisitor<Type> {
             stream(values()).filter(isEqual(TYPE_PARAMETER).negate()).forEach(this.targets::add);
         }
         processors.put(type, processor);
+        // Previously built plans may miss newly bound processor.
+        plans = createPlans();
     }
 
-    private void processAnnotations(Type target, AnnotatedElement element, ElementType elementType, Class<?> type) {
-        for (Annotation annotation : element.getAnnotations()) {
-            Processor annotationListener = processors.get(annotation.annotationType());
-            if (annotationListener != null) {
-                try {
-                    annotationListener.process(annotation, target, element, elementType, type);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+    /**
+     * Get elements of class hierarchy annotated with given annotation, in order they are processed.
+     *
+     * @param type class to inspect.
+     * @param annotationType annotation to look for.
+     * @return Annotated interfaces, classes, fields and methods.
+     */
+    public static List<AnnotatedElement> getAnnotatedElements(Class<?> type, Class<? extends Annotation> annotationType) {
+        List<AnnotatedElement> out = new ArrayList<>();
+        for (Step step : STEPS.get(type)) {
+            if (step.annotation.annotationType() == annotationType) {
+                out.add(step.element);
             }
         }
+        return out;
     }
 
-    private void processType(Type target, Class<?> type) {
-        if (type != null) {
-            Arrays.stream(type.getInterfaces()).forEach(c -> processType(target, c));
-            processType(target, type.getSuperclass());
-
-            Arrays.stream(type.getDeclaredFields()).forEach(f -> processAnnotations(target, f, FIELD, type));
-            Arrays.stream(type.getDeclaredMethods()).forEach(m -> processAnnotations(target, m, METHOD, type));
-            processAnnotations(target, type, TYPE, type);
+    private static void collect(List<Step> out, AnnotatedElement element, ElementType elementType, Class<?> type) {
+        for (Annotation annotation : element.getAnnotations()) {
+            out.add(new Step(annotation, element, elementType, type, null));
         }
     }
 
+    /**
+     * Create cache of per-class processing plans: annotations of class hierarchy that have bound processors.
+     */
+    private ClassValue<Step[]> createPlans() {
+        return new ClassValue<Step[]>() {
+
+            @Override
+            protected Step[] computeValue(Class<?> type) {
+                return stream(STEPS.get(type))
+                        .filter(step -> processors.containsKey(step.annotation.annotationType()))
+                        .map(step -> new Step(step.annotation, step.element, step.elementType, step.type, processors.get(step.annotation.annotationType())))
+                        .toArray(Step[]::new);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
     public void process(Type target) {
-        processType(target, target.getClass());
+        for (Step step : plans.get(target.getClass())) {
+            try {
+                step.processor.process(step.annotation, target, step.element, step.elementType, step.type);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Annotation captured at class hierarchy element.
+     */
+    private static final class Step
+    {
+
+        final Annotation annotation;
+        final AnnotatedElement element;
+        final ElementType elementType;
+        final Class type;
+        final Processor processor;
+
+        Step(Annotation annotation, AnnotatedElement element, ElementType elementType, Class<?> type, Processor processor) {
+            this.annotation = annotation;
+            this.element = element;
+            this.elementType = elementType;
+            this.type = type;
+            this.processor = processor;
+        }
     }
 }
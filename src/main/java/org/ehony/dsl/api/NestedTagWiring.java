@@ -0,0 +1,32 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.api;
+
+/**
+ * Appends tags referenced by {@link NestedTag} members of container to it.
+ * <p>Implementations are generated at compile time by <code>dsl-backbone-processor</code> for each
+ * container type that has nested tag members. Generated class resides in the same package as
+ * container type and is named after its binary name with <code>_NestedTags</code> suffix,
+ * ex. <code>Car_NestedTags</code> for <code>Car</code>.</p>
+ *
+ * @param <Type> type of container tag.
+ */
+@FunctionalInterface
+public interface NestedTagWiring<Type extends ContainerTag>
+{
+
+    /**
+     * Suffix of generated wiring class names.
+     */
+    String SUFFIX = "_NestedTags";
+
+    /**
+     * Append nested tags of container to its children.
+     * @param tag container to process.
+     */
+    void wire(Type tag);
+}
@@ -0,0 +1,90 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.api;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of canonical {@link QName} instances used as keys of {@link Tolerant#getCustomAttributes() custom attributes}.
+ * <p>Trees usually repeat a few attribute names, so sharing instances saves memory and lets
+ * {@link QName#equals(Object)} succeed on identity check. Prefixes are not part of qualified name
+ * identity, so canonical instance may have prefix other than the requested one. When pool holds
+ * {@value #CAPACITY} names, new names are no longer interned.</p>
+ * <p>Pool is thread-safe, lookups of pooled names do not lock and do not allocate.</p>
+ */
+public final class QNamePool
+{
+
+    /**
+     * Maximum number of pooled names.
+     */
+    public static final int CAPACITY = 4096;
+
+    private static final ConcurrentMap<String, ConcurrentMap<String, QName>> NAMES = new ConcurrentHashMap<>();
+    private static final AtomicInteger SIZE = new AtomicInteger();
+
+    private QNamePool() {
+    }
+
+    /**
+     * Get canonical qualified name.
+     *
+     * @param namespace namespace URI, <code>null</code> is treated as no namespace.
+     * @param name local name.
+     * @return Pooled instance or new instance if pool is full.
+     */
+    public static QName intern(String namespace, String name) {
+        if (namespace == null) {
+            namespace = XMLConstants.NULL_NS_URI;
+        }
+        ConcurrentMap<String, QName> names = NAMES.get(namespace);
+        if (names != null) {
+            QName qname = names.get(name);
+            if (qname != null) {
+                return qname;
+            }
+        }
+        return add(new QName(namespace, name));
+    }
+
+    /**
+     * Get canonical instance of qualified name.
+     *
+     * @param qname qualified name.
+     * @return Pooled instance or given instance if pool is full.
+     */
+    public static QName intern(QName qname) {
+        if (qname == null) {
+            return null;
+        }
+        ConcurrentMap<String, QName> names = NAMES.get(qname.getNamespaceURI());
+        if (names != null) {
+            QName pooled = names.get(qname.getLocalPart());
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+        return add(qname);
+    }
+
+    private static QName add(QName qname) {
+        if (SIZE.get() >= CAPACITY) {
+            return qname;
+        }
+        ConcurrentMap<String, QName> names = NAMES.computeIfAbsent(qname.getNamespaceURI(), namespace -> new ConcurrentHashMap<>());
+        QName pooled = names.putIfAbsent(qname.getLocalPart(), qname);
+        if (pooled != null) {
+            return pooled;
+        }
+        // Capacity may be exceeded by concurrently added names only.
+        SIZE.incrementAndGet();
+        return qname;
+    }
+}
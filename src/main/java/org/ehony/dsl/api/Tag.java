@@ -64,6 +64,27 @@ public interface Tag<Parent extends ContainerTag>
         // noop
     }
 
+    /**
+     * Make this tag and its descendants read-only.
+     * <p>Frozen tags reject modifications with {@link IllegalStateException}, their collections
+     * are immutable. Frozen tree can be shared between threads and read without synchronization
+     * once reference to it is safely published.</p>
+     *
+     * @exception IllegalStateException if tag has parent which is not frozen.
+     * @exception UnsupportedOperationException if tag cannot be frozen.
+     */
+    default void freeze() {
+        throw new UnsupportedOperationException("Tag cannot be frozen: " + getClass().getName());
+    }
+
+    /**
+     * Is tag read-only.
+     * @see #freeze()
+     */
+    default boolean isFrozen() {
+        return false;
+    }
+
     // <editor-fold desc="Default Fluent API">
 
     /**
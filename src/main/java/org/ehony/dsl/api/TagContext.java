@@ -6,6 +6,8 @@
  */
 package org.ehony.dsl.api;
 
+import java.util.Optional;
+
 /**
  * Interface of DSL tag context.
  */
@@ -18,9 +20,27 @@ public interface TagContext
      * @param id nonempty bean identifier.
      * @param type type of looked up bean.
      * @return Bean instance of requested type.
+     * @exception IllegalArgumentException if there is no bean of requested type.
      */
     <T> T getBean(String id, Class<T> type);
 
+    /**
+     * Look up optional bean defined in this context.
+     * <p>Unlike {@link #getBean(String, Class)} missing beans are not reported with exceptions,
+     * implementations are expected to override default exception-catching behavior.</p>
+     *
+     * @param id nonempty bean identifier.
+     * @param type type of looked up bean.
+     * @return Bean instance of requested type or empty if there is no such bean or bean is <code>null</code>.
+     */
+    default <T> Optional<T> findBean(String id, Class<T> type) {
+        try {
+            return Optional.ofNullable(getBean(id, type));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Get class loader for this context.
      */
@@ -12,6 +12,7 @@ public interface Tolerant<Type extends Tolerant<Type>>
 
     /**
      * Get attributes which were not explicitly defined by schema.
+     * <p>Keys are expected to be {@link QNamePool#intern(QName) interned}.</p>
      */
     Map<QName, Object> getCustomAttributes();
 
@@ -26,7 +27,7 @@ public interface Tolerant<Type extends Tolerant<Type>>
      */
     @SuppressWarnings("unchecked")
     default Type attribute(QName name, Object value) {
-        getCustomAttributes().put(name, value);
+        getCustomAttributes().put(QNamePool.intern(name), value);
         return (Type) this;
     }
 
@@ -39,7 +40,7 @@ public interface Tolerant<Type extends Tolerant<Type>>
      * @return Original builder instance.
      */
     default Type attribute(String namespace, String name, Object value) {
-        return attribute(new QName(namespace, name), value);
+        return attribute(QNamePool.intern(namespace, name), value);
     }
 
     /**
@@ -50,7 +51,7 @@ public interface Tolerant<Type extends Tolerant<Type>>
      * @return Original builder instance.
      */
     default Type attribute(String name, Object value) {
-        return attribute(new QName(name), value);
+        return attribute(QNamePool.intern(null, name), value);
     }
 
     // </editor-fold>
@@ -0,0 +1,306 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.binding;
+
+import org.ehony.dsl.annotation.Accessor;
+
+import javax.xml.bind.annotation.*;
+import javax.xml.bind.annotation.adapters.*;
+import javax.xml.namespace.QName;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.math.*;
+import java.util.*;
+
+/**
+ * Mapping of single JAXB property of a tag class to XML attribute, element or text content.
+ * <p>Property values are read and written via {@link MethodHandle method handles} created once
+ * per property, simple values are converted to and from text honoring {@link XmlJavaTypeAdapter}
+ * and {@link XmlEnumValue} annotations.</p>
+ *
+ * @see TagBinding
+ */
+public final class PropertyBinding
+{
+
+    /**
+     * Kind of XML node property is mapped to.
+     */
+    public enum Kind
+    {
+        ATTRIBUTE, ELEMENT, VALUE
+    }
+
+    private final Kind kind;
+    private final QName name;
+    private final Class<?> type;
+    private final boolean collection;
+    private final boolean nested;
+    private final Accessor getter;
+    private final MethodHandle setter;
+    private final XmlAdapter<Object, Object> adapter;
+    private final Class<?> valueType;
+    private final Map<String, Object> constants;
+
+    PropertyBinding(Kind kind, QName name, Class<?> type, boolean collection, boolean nested,
+                    Accessor getter, MethodHandle setter, XmlAdapter<Object, Object> adapter) {
+        this.kind = kind;
+        this.name = name;
+        this.type = type;
+        this.collection = collection;
+        this.nested = nested;
+        this.getter = getter;
+        this.setter = setter;
+        this.adapter = adapter;
+        if (adapter != null) {
+            valueType = getValueType(adapter.getClass());
+        } else {
+            valueType = type;
+        }
+        constants = getConstants(valueType);
+    }
+
+    /**
+     * Get kind of XML node this property is mapped to.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get qualified name of attribute or element, <code>null</code> for text content.
+     */
+    public QName getName() {
+        return name;
+    }
+
+    /**
+     * Get type of property value, or type of collection item for collection properties.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Is property a collection mapped to repeated elements.
+     */
+    public boolean isCollection() {
+        return collection;
+    }
+
+    /**
+     * Is property value a {@link org.ehony.dsl.api.NestedTag nested tag} of its container.
+     */
+    public boolean isNested() {
+        return nested;
+    }
+
+    /**
+     * Is property value represented as text rather than as a tag.
+     */
+    public boolean isSimple() {
+        return kind != Kind.ELEMENT || isSimple(valueType);
+    }
+
+    /**
+     * Is property value converted with {@link XmlJavaTypeAdapter}.
+     */
+    boolean isAdapted() {
+        return adapter != null;
+    }
+
+    static boolean isSimple(Class<?> type) {
+        return type.isPrimitive()
+                || type.isEnum()
+                || type == String.class
+                || type == Boolean.class
+                || type == Character.class
+                || Number.class.isAssignableFrom(type) && type.getName().startsWith("java.");
+    }
+
+    /**
+     * Read property value.
+     *
+     * @param tag object to read property of.
+     * @return Property value or collection of values.
+     */
+    public Object get(Object tag) {
+        return getter.get(tag);
+    }
+
+    /**
+     * Assign property value, or add value to collection if property is a collection.
+     *
+     * @param tag object to assign property of.
+     * @param value value to assign.
+     */
+    @SuppressWarnings("unchecked")
+    public void set(Object tag, Object value) {
+        try {
+            if (collection) {
+                Collection<Object> values = (Collection<Object>) getter.get(tag);
+                if (values == null) {
+                    if (setter == null) {
+                        throw new IllegalStateException("Collection is not initialized: " + name);
+                    }
+                    values = new ArrayList<>();
+                    setter.invokeExact(tag, (Object) values);
+                }
+                values.add(value);
+            } else {
+                if (setter == null) {
+                    throw new IllegalStateException("Property is read-only: " + name);
+                }
+                setter.invokeExact(tag, value);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * Convert lexical representation to property value.
+     *
+     * @param text text to convert.
+     * @return Property value.
+     * @exception IllegalArgumentException text cannot be converted.
+     */
+    public Object parse(String text) {
+        Object value = parse(valueType, constants, text);
+        if (adapter != null) {
+            try {
+                return adapter.unmarshal(value);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Cannot adapt value of " + name + ": " + text, e);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Convert property value to its lexical representation.
+     *
+     * @param value value to convert.
+     * @return Text or <code>null</code> if value is <code>null</code>.
+     */
+    public String print(Object value) {
+        if (adapter != null) {
+            try {
+                value = adapter.marshal(value);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Cannot adapt value of " + name + ": " + value, e);
+            }
+        }
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Enum) {
+            for (Map.Entry<String, Object> constant : constants.entrySet()) {
+                if (constant.getValue() == value) {
+                    return constant.getKey();
+                }
+            }
+        }
+        return value.toString();
+    }
+
+    private static Object parse(Class<?> type, Map<String, Object> constants, String text) {
+        if (type == String.class || type == Object.class) {
+            return text;
+        }
+        // Values of other simple types are whitespace-collapsed.
+        String value = text.trim();
+        try {
+            if (constants != null) {
+                Object constant = constants.get(value);
+                if (constant == null) {
+                    throw new IllegalArgumentException("Unknown constant of " + type.getName() + ": " + value);
+                }
+                return constant;
+            }
+            if (type == int.class || type == Integer.class) {
+                return Integer.valueOf(value);
+            }
+            if (type == long.class || type == Long.class) {
+                return Long.valueOf(value);
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return "true".equals(value) || "1".equals(value);
+            }
+            if (type == double.class || type == Double.class) {
+                return Double.valueOf(value);
+            }
+            if (type == float.class || type == Float.class) {
+                return Float.valueOf(value);
+            }
+            if (type == short.class || type == Short.class) {
+                return Short.valueOf(value);
+            }
+            if (type == byte.class || type == Byte.class) {
+                return Byte.valueOf(value);
+            }
+            if (type == char.class || type == Character.class) {
+                return value.charAt(0);
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            }
+            if (type == BigInteger.class) {
+                return new BigInteger(value);
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cannot convert to " + type.getName() + ": " + text, e);
+        }
+        throw new IllegalArgumentException("Unsupported value type: " + type.getName());
+    }
+
+    /**
+     * Get enum constants by their lexical representation.
+     */
+    private static Map<String, Object> getConstants(Class<?> type) {
+        if (!type.isEnum()) {
+            return null;
+        }
+        Map<String, Object> constants = new LinkedHashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            String value = ((Enum) constant).name();
+            try {
+                XmlEnumValue annotation = type.getField(value).getAnnotation(XmlEnumValue.class);
+                if (annotation != null) {
+                    value = annotation.value();
+                }
+            } catch (NoSuchFieldException e) {
+                // Enum constant is always backed by a field.
+            }
+            constants.put(value, constant);
+        }
+        return constants;
+    }
+
+    /**
+     * Resolve value type of {@link XmlAdapter}, defaults to {@link String}.
+     */
+    private static Class<?> getValueType(Class<?> type) {
+        for (Class<?> c = type; c != XmlAdapter.class && c != null; c = c.getSuperclass()) {
+            Type superclass = c.getGenericSuperclass();
+            if (superclass instanceof ParameterizedType && ((ParameterizedType) superclass).getRawType() == XmlAdapter.class) {
+                Type value = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+                if (value instanceof Class) {
+                    return (Class<?>) value;
+                }
+            }
+        }
+        return String.class;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name + ": " + type.getName() + (collection ? "[]" : "");
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.binding;
+
+import org.ehony.dsl.annotation.Accessor;
+import org.ehony.dsl.api.NestedTag;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.annotation.*;
+import javax.xml.bind.annotation.adapters.*;
+import javax.xml.namespace.QName;
+import java.beans.Introspector;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+import static org.ehony.dsl.binding.PropertyBinding.Kind.*;
+
+/**
+ * Metadata describing how instances of a tag class are mapped to XML, derived from JAXB annotations.
+ * <p>Bindings are created once per class and cached along with it, so readers and writers built
+ * on top of them do not use reflection while processing tags. Supported subset of JAXB mapping:</p>
+ * <ul>
+ *     <li>{@link XmlRootElement}, {@link XmlSchema} namespaces and forms, {@link XmlAccessorType};</li>
+ *     <li>{@link XmlAttribute}, {@link XmlElement}, {@link XmlValue} and {@link XmlAnyAttribute} properties
+ *     declared as fields or getter-setter pairs, including collections mapped to repeated elements;</li>
+ *     <li>{@link XmlJavaTypeAdapter} of simple values and {@link XmlEnumValue} of enum constants.</li>
+ * </ul>
+ * <p>Members annotated with other JAXB annotations, like {@link XmlElementRef} or {@link XmlAnyElement},
+ * are rejected with {@link IllegalArgumentException}.</p>
+ */
+public final class TagBinding
+{
+
+    private static final ClassValue<TagBinding> BINDINGS = new ClassValue<TagBinding>() {
+
+        @Override
+        protected TagBinding computeValue(Class<?> type) {
+            return new TagBinding(type);
+        }
+    };
+
+    private static final String DEFAULT = "##default";
+
+    @SuppressWarnings("unchecked")
+    private static final List<Class<? extends Annotation>> UNSUPPORTED = Arrays.asList(
+            XmlElements.class, XmlElementRef.class, XmlElementRefs.class, XmlElementWrapper.class,
+            XmlAnyElement.class, XmlMixed.class, XmlIDREF.class, XmlList.class);
+
+    private final Class<?> type;
+    private final QName name;
+    private final MethodHandle constructor;
+    private final Map<QName, PropertyBinding> attributes = new LinkedHashMap<>();
+    private final Map<QName, PropertyBinding> elements = new LinkedHashMap<>();
+    private final List<Accessor> nested = new ArrayList<>();
+    private PropertyBinding value;
+    private Accessor anyAttribute;
+
+    private TagBinding(Class<?> type) {
+        this.type = type;
+        name = getRootName(type);
+        constructor = getConstructor(type);
+
+        Map<String, PropertyBinding> properties = new LinkedHashMap<>();
+        List<AnnotatedElement> members = new ArrayList<>();
+        collect(type, properties, members);
+        for (PropertyBinding property : properties.values()) {
+            if (property == null) {
+                // Properties which hold custom attributes are not mapped to nodes.
+                continue;
+            }
+            switch (property.getKind()) {
+                case ATTRIBUTE:
+                    attributes.put(property.getName(), property);
+                    break;
+                case ELEMENT:
+                    elements.put(property.getName(), property);
+                    break;
+                case VALUE:
+                    value = property;
+                    break;
+            }
+        }
+        // Nested tags which are not bound to elements must be wired separately.
+        for (AnnotatedElement member : members) {
+            nested.add(Accessor.of(member));
+        }
+    }
+
+    /**
+     * Get cached binding of given class.
+     *
+     * @param type tag class.
+     * @return Binding of tag class.
+     * @exception IllegalArgumentException class uses unsupported JAXB mapping.
+     */
+    public static TagBinding of(Class<?> type) {
+        return BINDINGS.get(type);
+    }
+
+    /**
+     * Get bound class.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Get qualified name of root element declared by {@link XmlRootElement}.
+     * @return Element name or <code>null</code> if class is not annotated as root element.
+     */
+    public QName getName() {
+        return name;
+    }
+
+    /**
+     * Create new instance of bound class via its no-argument constructor.
+     */
+    public Object newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException("No-argument constructor expected: " + type.getName());
+        }
+        try {
+            return constructor.invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * Get properties mapped to attributes in declaration order.
+     */
+    public Collection<PropertyBinding> getAttributes() {
+        return Collections.unmodifiableCollection(attributes.values());
+    }
+
+    /**
+     * Get property mapped to attribute with given name.
+     * @return Property or <code>null</code> if there is no such attribute.
+     */
+    public PropertyBinding getAttribute(QName name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * Get properties mapped to elements in declaration order.
+     */
+    public Collection<PropertyBinding> getElements() {
+        return Collections.unmodifiableCollection(elements.values());
+    }
+
+    /**
+     * Get property mapped to element with given name.
+     * @return Property or <code>null</code> if there is no such element.
+     */
+    public PropertyBinding getElement(QName name) {
+        return elements.get(name);
+    }
+
+    /**
+     * Get property mapped to text content.
+     * @return Property or <code>null</code> if class has no {@link XmlValue} property.
+     */
+    public PropertyBinding getValue() {
+        return value;
+    }
+
+    /**
+     * Does bound class have {@link XmlAnyAttribute} property which holds custom attributes.
+     */
+    public boolean hasCustomAttributes() {
+        return anyAttribute != null;
+    }
+
+    /**
+     * Get map of attributes which are not bound to properties, ex. {@link org.ehony.dsl.api.Tolerant#getCustomAttributes()}.
+     *
+     * @param tag object to read attributes of.
+     * @return Map of custom attributes or <code>null</code> if class has no {@link XmlAnyAttribute} property.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<QName, Object> getCustomAttributes(Object tag) {
+        if (anyAttribute == null) {
+            return null;
+        }
+        return (Map<QName, Object>) anyAttribute.get(tag);
+    }
+
+    /**
+     * Get accessors of {@link NestedTag} members which are not bound to elements.
+     */
+    public List<Accessor> getNestedTags() {
+        return Collections.unmodifiableList(nested);
+    }
+
+    // <editor-fold desc="Introspection">
+
+    private static QName getRootName(Class<?> type) {
+        XmlRootElement root = type.getAnnotation(XmlRootElement.class);
+        if (root == null) {
+            return null;
+        }
+        String namespace = root.namespace();
+        if (DEFAULT.equals(namespace)) {
+            XmlSchema schema = getSchema(type);
+            namespace = schema == null ? XMLConstants.NULL_NS_URI : schema.namespace();
+        }
+        String name = root.name();
+        if (DEFAULT.equals(name)) {
+            name = Introspector.decapitalize(type.getSimpleName());
+        }
+        return new QName(namespace, name);
+    }
+
+    private static MethodHandle getConstructor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static XmlSchema getSchema(Class<?> type) {
+        Package pkg = type.getPackage();
+        return pkg == null ? null : pkg.getAnnotation(XmlSchema.class);
+    }
+
+    private static XmlAccessType getAccessType(Class<?> type) {
+        XmlAccessorType accessor = type.getAnnotation(XmlAccessorType.class);
+        if (accessor == null && type.getPackage() != null) {
+            accessor = type.getPackage().getAnnotation(XmlAccessorType.class);
+        }
+        return accessor == null ? XmlAccessType.PUBLIC_MEMBER : accessor.value();
+    }
+
+    /**
+     * Collect properties of class hierarchy, properties of superclasses go first.
+     */
+    private void collect(Class<?> type, Map<String, PropertyBinding> properties, List<AnnotatedElement> nested) {
+        if (type == null || type == Object.class) {
+            return;
+        }
+        collect(type.getSuperclass(), properties, nested);
+        XmlAccessType access = getAccessType(type);
+
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                    || field.isAnnotationPresent(XmlTransient.class)) {
+                continue;
+            }
+            if (isMapped(field) || access == XmlAccessType.FIELD || access == XmlAccessType.PUBLIC_MEMBER && Modifier.isPublic(modifiers)) {
+                properties.put(field.getName(), createProperty(field, field, field.getGenericType(), field.getName(), nested));
+            } else if (field.isAnnotationPresent(NestedTag.class)) {
+                nested.add(field);
+            }
+        }
+        for (Method getter : type.getDeclaredMethods()) {
+            String name = getPropertyName(getter);
+            if (name == null) {
+                continue;
+            }
+            Method setter = getSetter(type, getter, name);
+            if (getter.isAnnotationPresent(XmlTransient.class) || setter != null && setter.isAnnotationPresent(XmlTransient.class)) {
+                continue;
+            }
+            if (isMapped(getter) || setter != null && isMapped(setter)
+                    || setter != null && (access == XmlAccessType.PROPERTY
+                        || access == XmlAccessType.PUBLIC_MEMBER && Modifier.isPublic(getter.getModifiers()) && Modifier.isPublic(setter.getModifiers()))) {
+                AnnotatedElement annotated = isMapped(getter) || setter == null ? getter : setter;
+                properties.put(name, createProperty(annotated, getter, getter.getGenericReturnType(), name, nested));
+                if (setter != null && setter.isAnnotationPresent(NestedTag.class) && !getter.isAnnotationPresent(NestedTag.class)) {
+                    nested.add(getter);
+                }
+            }
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(NestedTag.class) && getPropertyName(method) == null
+                    && method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers())) {
+                nested.add(method);
+            }
+        }
+    }
+
+    private static boolean isMapped(AnnotatedElement element) {
+        for (Annotation annotation : element.getAnnotations()) {
+            if (annotation.annotationType().getPackage() == XmlElement.class.getPackage()
+                    && annotation.annotationType() != XmlTransient.class) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getPropertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.isSynthetic() || method.isBridge()
+                || method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+            return null;
+        }
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return Introspector.decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+            return Introspector.decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    private static Method getSetter(Class<?> type, Method getter, String name) {
+        String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredMethod(setter, getter.getReturnType());
+            } catch (NoSuchMethodException e) {
+                // Setter may be declared by superclass.
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PropertyBinding createProperty(AnnotatedElement annotated, Member member, Type genericType, String name, List<AnnotatedElement> nested) {
+        for (Class<? extends Annotation> annotation : UNSUPPORTED) {
+            if (annotated.isAnnotationPresent(annotation)) {
+                throw new IllegalArgumentException("Unsupported JAXB mapping @" + annotation.getSimpleName() + ": " + member);
+            }
+        }
+        XmlSchema schema = getSchema(member.getDeclaringClass());
+        String namespace = schema == null ? XMLConstants.NULL_NS_URI : schema.namespace();
+
+        Class<?> type = getRawType(genericType);
+        boolean collection = Collection.class.isAssignableFrom(type);
+        if (collection) {
+            Type item = genericType instanceof ParameterizedType ? ((ParameterizedType) genericType).getActualTypeArguments()[0] : Object.class;
+            type = getRawType(item);
+        }
+        if (annotated.isAnnotationPresent(XmlAnyAttribute.class)) {
+            if (!Map.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException("Map expected: " + member);
+            }
+            anyAttribute = Accessor.of((AnnotatedElement) member);
+            return null;
+        }
+
+        PropertyBinding.Kind kind;
+        QName qname;
+        XmlAttribute attribute = annotated.getAnnotation(XmlAttribute.class);
+        XmlElement element = annotated.getAnnotation(XmlElement.class);
+        if (attribute != null) {
+            kind = ATTRIBUTE;
+            boolean qualified = schema != null && schema.attributeFormDefault() == XmlNsForm.QUALIFIED;
+            qname = new QName(DEFAULT.equals(attribute.namespace()) ? (qualified ? namespace : XMLConstants.NULL_NS_URI) : attribute.namespace(),
+                    DEFAULT.equals(attribute.name()) ? name : attribute.name());
+        } else if (annotated.isAnnotationPresent(XmlValue.class)) {
+            kind = VALUE;
+            qname = null;
+        } else {
+            kind = ELEMENT;
+            boolean qualified = schema != null && schema.elementFormDefault() == XmlNsForm.QUALIFIED;
+            String elementNamespace = element == null ? DEFAULT : element.namespace();
+            String elementName = element == null ? DEFAULT : element.name();
+            qname = new QName(DEFAULT.equals(elementNamespace) ? (qualified ? namespace : XMLConstants.NULL_NS_URI) : elementNamespace,
+                    DEFAULT.equals(elementName) ? name : elementName);
+            if (element != null && element.type() != XmlElement.DEFAULT.class) {
+                type = element.type();
+            }
+        }
+
+        XmlAdapter<Object, Object> adapter = null;
+        XmlJavaTypeAdapter adapted = annotated.getAnnotation(XmlJavaTypeAdapter.class);
+        if (adapted == null) {
+            adapted = type.getAnnotation(XmlJavaTypeAdapter.class);
+        }
+        if (adapted != null) {
+            try {
+                adapter = adapted.value().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot instantiate adapter: " + adapted.value().getName(), e);
+            }
+        }
+
+        boolean isNested = annotated.isAnnotationPresent(NestedTag.class);
+        if (!isNested && annotated != member && ((AnnotatedElement) member).isAnnotationPresent(NestedTag.class)) {
+            isNested = true;
+        }
+        if (isNested && (kind != ELEMENT || collection)) {
+            nested.add((AnnotatedElement) member);
+            isNested = false;
+        }
+        return new PropertyBinding(kind, qname, type, collection, isNested,
+                Accessor.of((AnnotatedElement) member), getSetter(member, name), adapter);
+    }
+
+    private static Class<?> getRawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return getRawType(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof WildcardType) {
+            return getRawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return getRawType(((TypeVariable) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private static MethodHandle getSetter(Member member, String name) {
+        MethodType type = MethodType.methodType(void.class, Object.class, Object.class);
+        try {
+            if (member instanceof Field) {
+                Field field = (Field) member;
+                if (Modifier.isFinal(field.getModifiers())) {
+                    return null;
+                }
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectSetter(field).asType(type);
+            }
+            Method setter = getSetter(member.getDeclaringClass(), (Method) member, name);
+            if (setter == null) {
+                return null;
+            }
+            setter.setAccessible(true);
+            return MethodHandles.lookup().unreflect(setter).asType(type);
+        } catch (IllegalAccessException | SecurityException e) {
+            throw new IllegalArgumentException("Property is not accessible: " + member, e);
+        }
+    }
+
+    // </editor-fold>
+}
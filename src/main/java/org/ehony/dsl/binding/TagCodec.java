@@ -0,0 +1,567 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.binding;
+
+import org.ehony.dsl.annotation.Accessor;
+import org.ehony.dsl.api.*;
+
+import javax.xml.namespace.QName;
+import java.io.*;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary format of tag trees.
+ * <p>Tags are encoded property by property in order defined by their {@link TagBinding}. Numbers
+ * and lengths are written as variable-length integers. Tag classes, tag names, identifiers,
+ * custom attribute names and other strings are written once per document and then referenced
+ * by their index in the string table which is built on the fly by both encoder and decoder.</p>
+ * <p>Along with class name each tag class is written with hash of its property layout, so data
+ * written with different version of the class is rejected rather than misread.</p>
+ * <p>Decoder instantiates only {@link Tag} classes. Codec created with {@link #TagCodec(Class[])}
+ * instantiates only registered classes and classes of their elements, which is the way to decode
+ * data received from other parties. Lengths and references read from data are checked against
+ * the buffer and the string table, tags nested deeper than {@value #MAX_DEPTH} levels are rejected.</p>
+ * <p>Codec is thread-safe and is expected to be shared.</p>
+ */
+public class TagCodec
+{
+
+    private static final int MAGIC = 0x44534C42;
+    private static final int VERSION = 1;
+
+    /**
+     * Maximum nesting of decoded tags, deeper trees are rejected rather than overflow the stack.
+     */
+    static final int MAX_DEPTH = 256;
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(TagBinding.of(type));
+        }
+    };
+
+    private final ClassLoader loader;
+    private final Map<String, Class<?>> types;
+
+    /**
+     * Create codec which loads tag classes with class loader of this codec.
+     */
+    public TagCodec() {
+        this(TagCodec.class.getClassLoader());
+    }
+
+    /**
+     * Create codec which loads tag classes with given class loader.
+     * @param loader class loader of tag classes.
+     */
+    public TagCodec(ClassLoader loader) {
+        this.loader = loader;
+        types = null;
+    }
+
+    /**
+     * Create codec which decodes only given tag classes.
+     * <p>Classes of elements of registered classes are registered as well. Subclasses of element
+     * types, if they are expected in data, must be registered explicitly.</p>
+     *
+     * @param types tag classes to accept.
+     * @exception IllegalArgumentException class is not a tag or uses unsupported JAXB mapping.
+     */
+    public TagCodec(Class<?>... types) {
+        loader = null;
+        this.types = new HashMap<>();
+        for (Class<?> type : types) {
+            register(type);
+        }
+    }
+
+    private void register(Class<?> type) {
+        if (!Tag.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Tag class expected: " + type.getName());
+        }
+        if (types.putIfAbsent(type.getName(), type) != null) {
+            return;
+        }
+        Layout layout = LAYOUTS.get(type);
+        for (int i = 0; i < layout.properties.length; i++) {
+            Class<?> element = layout.properties[i].getType();
+            if (layout.formats[i] == null && Tag.class.isAssignableFrom(element)
+                    && !element.isInterface() && !Modifier.isAbstract(element.getModifiers())) {
+                register(element);
+            }
+        }
+    }
+
+    /**
+     * Get hash of property layout of given class.
+     * <p>Hash changes if JAXB mapping of any property changes.</p>
+     *
+     * @param type tag class.
+     * @return Layout hash.
+     */
+    public static int getLayoutHash(Class<?> type) {
+        return LAYOUTS.get(type).hash;
+    }
+
+    /**
+     * Encode tag tree.
+     *
+     * @param tag root tag.
+     * @return Buffer which contains encoded tree between its position and limit.
+     */
+    public ByteBuffer encode(Object tag) {
+        Encoder encoder = new Encoder();
+        encoder.writeInt(MAGIC);
+        encoder.writeVarint(VERSION);
+        encoder.writeTag(tag);
+        encoder.buffer.flip();
+        return encoder.buffer;
+    }
+
+    /**
+     * Write encoded tag tree to channel.
+     *
+     * @param tag root tag.
+     * @param out channel to write to, it is not closed by this method.
+     * @throws IOException if channel cannot be written.
+     */
+    public void write(Object tag, WritableByteChannel out) throws IOException {
+        ByteBuffer buffer = encode(tag);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Decode tag tree starting at current position of the buffer.
+     * <p>When method returns buffer is positioned after the end of tree.</p>
+     *
+     * @param in buffer to read from.
+     * @return Root tag.
+     * @throws IOException if buffer does not contain tag tree or tree was written with incompatible tag classes.
+     */
+    public Object decode(ByteBuffer in) throws IOException {
+        Decoder decoder = new Decoder(in);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new StreamCorruptedException("Encoded tag tree expected.");
+            }
+            int version = decoder.readVarint();
+            if (version != VERSION) {
+                throw new StreamCorruptedException("Unsupported format version: " + version);
+            }
+            return decoder.readTag(Tag.class);
+        } catch (RuntimeException e) {
+            IOException exception = new StreamCorruptedException("Cannot decode tag tree: " + e.getMessage());
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    /**
+     * Read tag tree from channel until end of stream is reached.
+     *
+     * @param in channel to read from, it is not closed by this method.
+     * @return Root tag.
+     * @throws IOException if channel cannot be read or does not contain tag tree.
+     */
+    public Object read(ReadableByteChannel in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (in.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put((ByteBuffer) buffer.flip());
+            }
+        }
+        buffer.flip();
+        return decode(buffer);
+    }
+
+    /**
+     * Encoding of value of simple property.
+     */
+    private enum Format
+    {
+        STRING, INT, LONG, SHORT, BYTE, BOOLEAN, CHAR, FLOAT, DOUBLE;
+
+        static Format of(PropertyBinding property) {
+            if (property.isAdapted()) {
+                return STRING;
+            }
+            Class<?> type = property.getType();
+            if (type == int.class || type == Integer.class) {
+                return INT;
+            }
+            if (type == long.class || type == Long.class) {
+                return LONG;
+            }
+            if (type == short.class || type == Short.class) {
+                return SHORT;
+            }
+            if (type == byte.class || type == Byte.class) {
+                return BYTE;
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return BOOLEAN;
+            }
+            if (type == char.class || type == Character.class) {
+                return CHAR;
+            }
+            if (type == float.class || type == Float.class) {
+                return FLOAT;
+            }
+            if (type == double.class || type == Double.class) {
+                return DOUBLE;
+            }
+            return STRING;
+        }
+    }
+
+    /**
+     * Properties of tag class in encoding order.
+     */
+    private static final class Layout
+    {
+
+        final TagBinding binding;
+        final PropertyBinding[] properties;
+        final Format[] formats;
+        final int hash;
+
+        Layout(TagBinding binding) {
+            this.binding = binding;
+            List<PropertyBinding> properties = new ArrayList<>(binding.getAttributes());
+            properties.addAll(binding.getElements());
+            if (binding.getValue() != null) {
+                properties.add(binding.getValue());
+            }
+            this.properties = properties.toArray(new PropertyBinding[properties.size()]);
+            formats = new Format[this.properties.length];
+            int hash = binding.hasCustomAttributes() ? 1 : 0;
+            for (int i = 0; i < formats.length; i++) {
+                PropertyBinding property = this.properties[i];
+                formats[i] = property.isSimple() ? Format.of(property) : null;
+                hash = 31 * hash + property.toString().hashCode();
+            }
+            this.hash = hash;
+        }
+    }
+
+    private static final class Encoder
+    {
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        Map<String, Integer> strings = new HashMap<>();
+
+        void ensure(int size) {
+            if (buffer.remaining() < size) {
+                ByteBuffer expanded = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+                buffer.flip();
+                buffer = expanded.put(buffer);
+            }
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeSigned(long value) {
+            writeVarint(value << 1 ^ value >> 63);
+        }
+
+        /**
+         * Write reference to string table, string itself is written only at its first occurrence.
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarint(index + 2);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(1);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void writeSimple(Format format, PropertyBinding property, Object value) {
+            switch (format) {
+                case INT:
+                case SHORT:
+                case BYTE:
+                case LONG:
+                    writeSigned(((Number) value).longValue());
+                    break;
+                case BOOLEAN:
+                    writeVarint((Boolean) value ? 1 : 0);
+                    break;
+                case CHAR:
+                    writeVarint((Character) value);
+                    break;
+                case FLOAT:
+                    writeInt(Float.floatToIntBits((Float) value));
+                    break;
+                case DOUBLE:
+                    ensure(8);
+                    buffer.putLong(Double.doubleToLongBits((Double) value));
+                    break;
+                default:
+                    writeString(property.print(value));
+            }
+        }
+
+        void writeTag(Object tag) {
+            Layout layout = LAYOUTS.get(tag.getClass());
+            writeString(tag.getClass().getName());
+            writeInt(layout.hash);
+
+            PropertyBinding[] properties = layout.properties;
+            Object[] values = new Object[properties.length];
+            // Presence of property values is written as a bit mask.
+            long mask = 0;
+            for (int i = 0; i < properties.length; i++) {
+                values[i] = properties[i].get(tag);
+                if (values[i] != null) {
+                    mask |= 1L << (i & 63);
+                }
+                if ((i & 63) == 63 || i == properties.length - 1) {
+                    writeVarint(mask);
+                    mask = 0;
+                }
+            }
+            for (int i = 0; i < properties.length; i++) {
+                if (values[i] == null) {
+                    continue;
+                }
+                if (properties[i].isCollection()) {
+                    Collection<?> items = (Collection<?>) values[i];
+                    writeVarint(items.size());
+                    for (Object item : items) {
+                        writeValue(layout.formats[i], properties[i], item);
+                    }
+                } else {
+                    writeValue(layout.formats[i], properties[i], values[i]);
+                }
+            }
+            if (layout.binding.hasCustomAttributes()) {
+                Map<QName, Object> custom = layout.binding.getCustomAttributes(tag);
+                if (custom == null) {
+                    custom = Collections.emptyMap();
+                }
+                writeVarint(custom.size());
+                for (Map.Entry<QName, Object> attribute : custom.entrySet()) {
+                    writeString(attribute.getKey().toString());
+                    writeString(attribute.getValue() == null ? null : attribute.getValue().toString());
+                }
+            }
+        }
+
+        void writeValue(Format format, PropertyBinding property, Object value) {
+            if (format != null) {
+                writeSimple(format, property, value);
+            } else {
+                writeTag(value);
+            }
+        }
+    }
+
+    private final class Decoder
+    {
+
+        final ByteBuffer buffer;
+        final List<String> strings = new ArrayList<>();
+        final Map<String, Class<?>> loaded = new HashMap<>();
+        int depth;
+
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable-length integer.");
+        }
+
+        int readVarint() throws IOException {
+            return (int) readVarlong();
+        }
+
+        long readSigned() throws IOException {
+            long value = readVarlong();
+            return value >>> 1 ^ -(value & 1);
+        }
+
+        String readString() throws IOException {
+            int index = readVarint();
+            if (index == 0) {
+                return null;
+            }
+            if (index < 0 || index - 2 >= strings.size()) {
+                throw new StreamCorruptedException("Unknown string reference: " + index);
+            }
+            if (index > 1) {
+                return strings.get(index - 2);
+            }
+            int length = readVarint();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new StreamCorruptedException("Malformed string length: " + length);
+            }
+            String value;
+            if (buffer.hasArray()) {
+                value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                value = new String(bytes, UTF_8);
+            }
+            strings.add(value);
+            return value;
+        }
+
+        Object readSimple(Format format, PropertyBinding property) throws IOException {
+            switch (format) {
+                case INT:
+                    return (int) readSigned();
+                case LONG:
+                    return readSigned();
+                case SHORT:
+                    return (short) readSigned();
+                case BYTE:
+                    return (byte) readSigned();
+                case BOOLEAN:
+                    return readVarint() != 0;
+                case CHAR:
+                    return (char) readVarint();
+                case FLOAT:
+                    return Float.intBitsToFloat(buffer.getInt());
+                case DOUBLE:
+                    return Double.longBitsToDouble(buffer.getLong());
+                default:
+                    return property.parse(readString());
+            }
+        }
+
+        /**
+         * Resolve tag class, its name is checked before the class is loaded or instantiated.
+         */
+        Class<?> getType(String name) throws IOException {
+            if (name == null) {
+                throw new StreamCorruptedException("Tag class name expected.");
+            }
+            Class<?> type = loaded.get(name);
+            if (type != null) {
+                return type;
+            }
+            if (types != null) {
+                type = types.get(name);
+                if (type == null) {
+                    throw new InvalidClassException(name, "Tag class is not registered");
+                }
+            } else {
+                try {
+                    type = Class.forName(name, false, loader);
+                } catch (ClassNotFoundException e) {
+                    throw new InvalidClassException(name, "Tag class not found");
+                }
+                if (!Tag.class.isAssignableFrom(type)) {
+                    throw new InvalidClassException(name, "Tag class expected");
+                }
+            }
+            loaded.put(name, type);
+            return type;
+        }
+
+        Object readTag(Class<?> expected) throws IOException {
+            if (++depth > MAX_DEPTH) {
+                throw new StreamCorruptedException("Tag tree is nested deeper than " + MAX_DEPTH + " levels.");
+            }
+            Object tag = readProperties(expected);
+            depth--;
+            return tag;
+        }
+
+        @SuppressWarnings("unchecked")
+        Object readProperties(Class<?> expected) throws IOException {
+            String name = readString();
+            Class<?> type = getType(name);
+            if (!expected.isAssignableFrom(type)) {
+                throw new InvalidClassException(name, "Tag class is not assignable to " + expected.getName());
+            }
+            Layout layout = LAYOUTS.get(type);
+            if (buffer.getInt() != layout.hash) {
+                throw new InvalidClassException(name, "Incompatible property layout");
+            }
+            PropertyBinding[] properties = layout.properties;
+            long[] masks = new long[(properties.length + 63) / 64];
+            for (int i = 0; i < masks.length; i++) {
+                masks[i] = readVarlong();
+            }
+            Object tag = layout.binding.newInstance();
+            for (int i = 0; i < properties.length; i++) {
+                if ((masks[i >> 6] & 1L << (i & 63)) == 0) {
+                    continue;
+                }
+                PropertyBinding property = properties[i];
+                int count = property.isCollection() ? readVarint() : 1;
+                for (int j = 0; j < count; j++) {
+                    Object value = layout.formats[i] != null ? readSimple(layout.formats[i], property) : readTag(property.getType());
+                    property.set(tag, value);
+                    if (property.isNested()) {
+                        ((ContainerTag) tag).appendChild((Tag) value);
+                    }
+                }
+            }
+            if (layout.binding.hasCustomAttributes()) {
+                Map<QName, Object> custom = layout.binding.getCustomAttributes(tag);
+                for (int i = readVarint(); i > 0; i--) {
+                    QName attribute = QName.valueOf(readString());
+                    String value = readString();
+                    if (value != null && custom != null) {
+                        custom.put(attribute, value);
+                    }
+                }
+            }
+            for (Accessor accessor : layout.binding.getNestedTags()) {
+                Tag child = (Tag) accessor.get(tag);
+                if (child != null && child.getParentTag() != tag) {
+                    ((ContainerTag) tag).appendChild(child);
+                }
+            }
+            return tag;
+        }
+    }
+}
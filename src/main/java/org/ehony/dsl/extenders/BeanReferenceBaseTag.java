@@ -8,6 +8,7 @@ package org.ehony.dsl.extenders;
 
 import org.ehony.dsl.ContainerBaseTag;
 import org.ehony.dsl.api.ContainerTag;
+import org.ehony.dsl.api.TagContext;
 import org.ehony.dsl.api.ValidationException;
 
 import javax.xml.bind.annotation.*;
@@ -33,7 +34,8 @@ public class BeanReferenceBaseTag<
 
     private Class<? extends Bean> type;
     private String beanRef;
-    private Bean bean;
+    // Resolved lazily by readers of shared and frozen trees.
+    private volatile Bean bean;
 
     /**
      * Treat object as a bean reference.
@@ -79,7 +81,12 @@ public class BeanReferenceBaseTag<
      *             then bean type checking would not be performed.
      */
     public final void setType(Class<? extends Bean> type) {
+        ensureMutable();
         this.type = type;
+        if (beanRef != null) {
+            // Resolved bean was checked against previous type.
+            bean = null;
+        }
     }
 
     /**
@@ -102,6 +109,7 @@ public class BeanReferenceBaseTag<
         if (id == null) {
             throw new IllegalArgumentException("Nonempty bean identifier expected.");
         }
+        ensureMutable();
         this.beanRef = id;
         this.bean = null;
     }
@@ -119,26 +127,49 @@ public class BeanReferenceBaseTag<
     /**
      * Get bean instance.
      * <p>Resolution order: if bean identifier was set search in context
-     * using expected type, otherwise return preset bean instance.</p>
+     * using expected type, otherwise return preset bean instance. Bean
+     * found in context is kept until bean identifier or type is changed.</p>
      */
     @XmlTransient
-    @SuppressWarnings("unchecked")
     public Bean getBean() {
-        if (beanRef != null) {
-            setBean((Bean) resolveContext().getBean(beanRef, getRawClass()));
+        Bean bean = this.bean;
+        if (bean == null && beanRef != null) {
+            bean = resolve();
         }
         return bean;
     }
 
+    /**
+     * Look up referenced bean in tag context and keep it, so subsequent calls
+     * of {@link #getBean()} do not access context.
+     * @see BeanReferenceResolver
+     */
+    @SuppressWarnings("unchecked")
+    Bean resolve() {
+        TagContext context = resolveContext();
+        if (context == null) {
+            throw new IllegalStateException("Context required to resolve bean: " + beanRef);
+        }
+        return bean = (Bean) context.getBean(beanRef, getRawClass());
+    }
+
+    /**
+     * Is reference pending resolution.
+     */
+    boolean isUnresolved() {
+        return bean == null && beanRef != null;
+    }
+
     /**
      * Set bean instance.
      */
     @SuppressWarnings("unchecked")
     public final void setBean(Bean bean) {
         Class<?> type = getRawClass();
-        if (type.isInstance(bean)) {
+        if (!type.isInstance(bean)) {
             throw new IllegalArgumentException("Expected bean of " + type);
         }
+        ensureMutable();
         this.beanRef = null;
         this.bean = bean;
         this.type = (Class<Bean>) bean.getClass();
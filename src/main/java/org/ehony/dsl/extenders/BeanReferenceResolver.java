@@ -0,0 +1,105 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.extenders;
+
+import org.ehony.dsl.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Resolves all bean references of tag tree up front.
+ * <p>Each unresolved {@link BeanReferenceBaseTag} found in tree is resolved as a separate task
+ * of provided executor, so independent references are looked up in parallel. After successful
+ * resolution {@link BeanReferenceBaseTag#getBean()} returns bean without accessing context.
+ * Missing and ill-typed references do not stop resolution of others, they are reported together
+ * when all tasks complete.</p>
+ * <pre>
+ * new BeanReferenceResolver(executor).resolve(car);
+ * </pre>
+ */
+public class BeanReferenceResolver
+{
+
+    private final Executor executor;
+
+    /**
+     * Create resolver which runs lookups in common fork-join pool.
+     */
+    public BeanReferenceResolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create resolver which runs lookups with given executor.
+     * @param executor executor of lookup tasks.
+     */
+    public BeanReferenceResolver(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor expected.");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Resolve bean references of given tag and all its descendants.
+     * <p>Method returns when all lookups complete.</p>
+     *
+     * @param tag root of tree to resolve.
+     * @throws ValidationException if any reference cannot be resolved, failures of
+     *                             individual references are attached as suppressed exceptions.
+     * @throws InterruptedException if current thread was interrupted while waiting for lookups.
+     */
+    public void resolve(Tag<?> tag) throws ValidationException, InterruptedException {
+        List<BeanReferenceBaseTag<?, ?, ?>> references = collect(tag);
+        List<Future<?>> futures = new ArrayList<>(references.size());
+        for (BeanReferenceBaseTag<?, ?, ?> reference : references) {
+            FutureTask<Object> future = new FutureTask<>(reference::resolve);
+            futures.add(future);
+            executor.execute(future);
+        }
+        StringBuilder message = null;
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                if (message == null) {
+                    message = new StringBuilder("Cannot resolve bean references:");
+                }
+                BeanReferenceBaseTag<?, ?, ?> reference = references.get(i);
+                message.append("\n").append(reference.getTagName()).append('#').append(reference.getId())
+                        .append(" -> ").append(reference.getBeanRef()).append(": ").append(e.getCause().getMessage());
+                failures.add(e.getCause());
+            }
+        }
+        if (message != null) {
+            ValidationException exception = new ValidationException(message.toString());
+            failures.forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    /**
+     * Find unresolved references in tree.
+     */
+    private static List<BeanReferenceBaseTag<?, ?, ?>> collect(Tag<?> root) {
+        List<BeanReferenceBaseTag<?, ?, ?>> references = new ArrayList<>();
+        Deque<Tag<?>> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Tag<?> tag = queue.poll();
+            if (tag instanceof BeanReferenceBaseTag && ((BeanReferenceBaseTag<?, ?, ?>) tag).isUnresolved()) {
+                references.add((BeanReferenceBaseTag<?, ?, ?>) tag);
+            }
+            if (tag instanceof ContainerTag) {
+                queue.addAll(((ContainerTag<?, ?>) tag).getChildren());
+            }
+        }
+        return references;
+    }
+}
@@ -52,6 +52,7 @@ public class EncodingBaseTag<
      *            encoding is available in this instance of the Java virtual machine.
      */
     public void setEncoding(String encoding) {
+        ensureMutable();
         this.charset = Charset.forName(encoding);
     }
 
@@ -69,6 +70,7 @@ public class EncodingBaseTag<
      * @param charset another charset.
      */
     public void setCharset(Charset charset) {
+        ensureMutable();
         this.charset = charset;
     }
 
@@ -0,0 +1,171 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.query;
+
+import org.ehony.dsl.query.TagQuery.*;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import java.util.*;
+
+/**
+ * Recursive descent parser of {@link TagQuery} expressions.
+ */
+final class QueryParser
+{
+
+    private final String text;
+    private int position;
+
+    QueryParser(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Query expected.");
+        }
+        this.text = text;
+    }
+
+    TagQuery parse() {
+        skipSpaces();
+        boolean absolute = false;
+        if (!consume("//") && consume("/")) {
+            absolute = true;
+        }
+        List<Step> steps = new ArrayList<>();
+        List<Boolean> children = new ArrayList<>();
+        steps.add(step());
+        children.add(false);
+        while (true) {
+            boolean spaces = skipSpaces();
+            if (position == text.length()) {
+                break;
+            }
+            if (consume("//")) {
+                children.add(false);
+            } else if (consume("/") || consume(">")) {
+                children.add(true);
+            } else if (spaces) {
+                children.add(false);
+            } else {
+                throw error("Combinator expected");
+            }
+            skipSpaces();
+            steps.add(step());
+        }
+        return new TagQuery(text, absolute, steps, children);
+    }
+
+    private Step step() {
+        String name = null;
+        boolean any = consume("*");
+        if (!any && isNamePart()) {
+            name = name();
+        }
+        List<Condition> conditions = new ArrayList<>();
+        while (true) {
+            if (consume("#")) {
+                conditions.add(new Condition(TagQuery.ID, name(), false));
+            } else if (consume("[")) {
+                conditions.add(condition());
+            } else {
+                break;
+            }
+        }
+        if (!any && name == null && conditions.isEmpty()) {
+            throw error("Step expected");
+        }
+        return new Step(name, conditions);
+    }
+
+    private Condition condition() {
+        skipSpaces();
+        consume("@");
+        String namespace = XMLConstants.NULL_NS_URI;
+        if (consume("{")) {
+            int end = text.indexOf('}', position);
+            if (end < 0) {
+                throw error("Namespace is not closed");
+            }
+            namespace = text.substring(position, end);
+            position = end + 1;
+        }
+        QName name = new QName(namespace, name());
+        skipSpaces();
+        if (consume("]")) {
+            return new Condition(name, null, false);
+        }
+        boolean negated = consume("!=");
+        if (!negated && !consume("=")) {
+            throw error("Operator expected");
+        }
+        skipSpaces();
+        String value = value();
+        skipSpaces();
+        if (!consume("]")) {
+            throw error("']' expected");
+        }
+        return new Condition(name, value, negated);
+    }
+
+    private String value() {
+        if (position < text.length() && (text.charAt(position) == '\'' || text.charAt(position) == '"')) {
+            int end = text.indexOf(text.charAt(position), position + 1);
+            if (end < 0) {
+                throw error("Value is not closed");
+            }
+            String value = text.substring(position + 1, end);
+            position = end + 1;
+            return value;
+        }
+        int start = position;
+        while (position < text.length() && text.charAt(position) != ']' && !Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Value expected");
+        }
+        return text.substring(start, position);
+    }
+
+    private String name() {
+        int start = position;
+        while (isNamePart()) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Name expected");
+        }
+        return text.substring(start, position);
+    }
+
+    private boolean isNamePart() {
+        if (position == text.length()) {
+            return false;
+        }
+        char c = text.charAt(position);
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.';
+    }
+
+    private boolean skipSpaces() {
+        int start = position;
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position > start;
+    }
+
+    private boolean consume(String token) {
+        if (text.startsWith(token, position)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + position + ": " + text);
+    }
+}
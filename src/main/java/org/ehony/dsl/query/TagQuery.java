@@ -0,0 +1,373 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.query;
+
+import org.ehony.dsl.ContainerBaseTag;
+import org.ehony.dsl.api.*;
+import org.ehony.dsl.binding.*;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import java.util.*;
+
+/**
+ * Compiled query selecting tags of a tree.
+ * <p>Query is a sequence of steps separated by combinators, similar to CSS selectors and abbreviated XPath:</p>
+ * <ul>
+ *     <li><code>engine</code> matches tags which {@link Tag#getTagName() name} is <code>engine</code>,
+ *     <code>*</code> matches any tag;</li>
+ *     <li><code>engine#M28</code> or <code>engine[id=M28]</code> matches tags with given {@link Identifiable#getId() identifier};</li>
+ *     <li><code>engine[gears=5]</code>, <code>engine[gears!=5]</code> and <code>engine[@gears]</code> match values and
+ *     presence of attributes, either declared with JAXB annotations or {@link Tolerant#getCustomAttributes() custom},
+ *     namespaced attributes are written as <code>[@{http://ehony.org/}maintenance-year]</code>, values may be quoted;</li>
+ *     <li><code>car &gt; engine</code> or <code>car/engine</code> matches children, <code>car engine</code> or
+ *     <code>car//engine</code> matches descendants;</li>
+ *     <li>query starting with <code>/</code> matches path from the context tag, otherwise the first step
+ *     matches the context tag or any of its descendants, like <code>//</code> does.</li>
+ * </ul>
+ * <pre>
+ * TagQuery query = TagQuery.compile("car &gt; engine[gears=5]");
+ * List&lt;Tag&lt;?&gt;&gt; engines = query.findAll(car);
+ * </pre>
+ * <p>Query picks evaluation strategy when compiled. If the last step requires identifier, candidates
+ * are looked up with {@link ContainerBaseTag#getTagById(String) identifier index} and checked against
+ * remaining steps. Paths from the context tag which consist of children only visit matching branches.
+ * Other queries scan the tree in document order checking each tag against steps from right to left.</p>
+ * <p>Query is immutable and thread-safe, so it is expected to be compiled once and shared.</p>
+ */
+public final class TagQuery
+{
+
+    /**
+     * Bindings of tag classes, <code>null</code> if class does not support JAXB mapping.
+     */
+    private static final ClassValue<TagBinding> BINDINGS = new ClassValue<TagBinding>() {
+        @Override
+        protected TagBinding computeValue(Class<?> type) {
+            try {
+                return TagBinding.of(type);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    };
+
+    static final QName ID = new QName(XMLConstants.NULL_NS_URI, "id");
+
+    private final String expression;
+    private final boolean absolute;
+    private final Step[] steps;
+    private final boolean[] children;
+    private final String id;
+
+    /**
+     * @param expression source of query.
+     * @param absolute does the first step match context tag only.
+     * @param steps steps of query.
+     * @param children is step a child of the previous one rather than a descendant.
+     */
+    TagQuery(String expression, boolean absolute, List<Step> steps, List<Boolean> children) {
+        this.expression = expression;
+        this.absolute = absolute;
+        this.steps = steps.toArray(new Step[steps.size()]);
+        this.children = new boolean[children.size()];
+        for (int i = 0; i < this.children.length; i++) {
+            this.children[i] = children.get(i);
+        }
+        id = this.steps[this.steps.length - 1].getId();
+    }
+
+    /**
+     * Compile query.
+     *
+     * @param expression query to compile.
+     * @return Compiled query.
+     * @exception IllegalArgumentException query is malformed.
+     */
+    public static TagQuery compile(String expression) {
+        return new QueryParser(expression).parse();
+    }
+
+    /**
+     * Does tag match this query evaluated against given context tag.
+     *
+     * @param context context tag of query.
+     * @param tag tag to check.
+     * @return <code>true</code> if tag is the context tag or its descendant and matches query.
+     */
+    public boolean matches(Tag<?> context, Tag<?> tag) {
+        for (Tag<?> ancestor = tag; ancestor != null; ancestor = ancestor.getParentTag()) {
+            if (ancestor == context) {
+                return matches(context, steps.length - 1, tag);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find all tags matching this query.
+     *
+     * @param context context tag of query.
+     * @return Matching tags in document order.
+     */
+    public List<Tag<?>> findAll(Tag<?> context) {
+        if (id != null && context instanceof ContainerBaseTag) {
+            List<Tag<?>> result = new ArrayList<>();
+            for (Tag<?> tag : ((ContainerBaseTag<?, ?>) context).getTagsById(id)) {
+                if (matches(context, steps.length - 1, tag)) {
+                    result.add(tag);
+                }
+            }
+            if (result.size() > 1) {
+                // Tags sharing identifier are indexed in order they were attached.
+                result.sort(TagQuery::compareDocumentOrder);
+            }
+            return result;
+        }
+        if (absolute && isPath()) {
+            return findPath(context);
+        }
+        List<Tag<?>> result = new ArrayList<>();
+        scan(context, result, false);
+        return result;
+    }
+
+    /**
+     * Find the first tag matching this query.
+     *
+     * @param context context tag of query.
+     * @return The first matching tag in document order.
+     */
+    public Optional<Tag<?>> findFirst(Tag<?> context) {
+        if (id != null && context instanceof ContainerBaseTag || absolute && isPath()) {
+            List<Tag<?>> result = findAll(context);
+            return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+        }
+        List<Tag<?>> result = new ArrayList<>(1);
+        scan(context, result, true);
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    // <editor-fold desc="Evaluation">
+
+    /**
+     * Do all steps select children of previous ones.
+     */
+    private boolean isPath() {
+        for (int i = 1; i < children.length; i++) {
+            if (!children[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Match tag against given step and steps preceding it, walking up from tag towards context.
+     */
+    private boolean matches(Tag<?> context, int step, Tag<?> tag) {
+        if (!steps[step].matches(tag)) {
+            return false;
+        }
+        if (step == 0) {
+            return !absolute || tag == context;
+        }
+        if (tag == context) {
+            return false;
+        }
+        Tag<?> parent = tag.getParentTag();
+        if (children[step]) {
+            return parent != null && matches(context, step - 1, parent);
+        }
+        for (; parent != null; parent = parent.getParentTag()) {
+            if (matches(context, step - 1, parent)) {
+                return true;
+            }
+            if (parent == context) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Follow path of child steps from context, visiting only matching branches.
+     */
+    private List<Tag<?>> findPath(Tag<?> context) {
+        if (!steps[0].matches(context)) {
+            return Collections.emptyList();
+        }
+        List<Tag<?>> current = Collections.singletonList(context);
+        for (int i = 1; i < steps.length && !current.isEmpty(); i++) {
+            List<Tag<?>> next = new ArrayList<>();
+            for (Tag<?> tag : current) {
+                if (tag instanceof ContainerTag) {
+                    for (Tag<?> child : ((ContainerTag<?, ?>) tag).getChildren()) {
+                        if (steps[i].matches(child)) {
+                            next.add(child);
+                        }
+                    }
+                }
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * Check context and its descendants in document order.
+     */
+    private void scan(Tag<?> context, List<Tag<?>> result, boolean first) {
+        Deque<Tag<?>> stack = new ArrayDeque<>();
+        stack.push(context);
+        while (!stack.isEmpty()) {
+            Tag<?> tag = stack.pop();
+            if (matches(context, steps.length - 1, tag)) {
+                result.add(tag);
+                if (first) {
+                    return;
+                }
+            }
+            if (tag instanceof ContainerTag) {
+                List<? extends Tag<?>> children = ((ContainerTag<?, ?>) tag).getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+    }
+
+    private static int compareDocumentOrder(Tag<?> first, Tag<?> second) {
+        List<Tag<?>> firstPath = getPath(first), secondPath = getPath(second);
+        int i = 0;
+        while (i < firstPath.size() && i < secondPath.size() && firstPath.get(i) == secondPath.get(i)) {
+            i++;
+        }
+        if (i == firstPath.size() || i == secondPath.size()) {
+            // Ancestor precedes its descendants.
+            return Integer.compare(firstPath.size(), secondPath.size());
+        }
+        List<?> siblings = ((ContainerTag<?, ?>) firstPath.get(i - 1)).getChildren();
+        return Integer.compare(siblings.indexOf(firstPath.get(i)), siblings.indexOf(secondPath.get(i)));
+    }
+
+    /**
+     * Get ancestors of tag starting with root and ending with tag itself.
+     */
+    private static List<Tag<?>> getPath(Tag<?> tag) {
+        List<Tag<?>> path = new ArrayList<>();
+        for (Tag<?> ancestor = tag; ancestor != null; ancestor = ancestor.getParentTag()) {
+            path.add(ancestor);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Get lexical value of attribute, declared attributes take precedence over custom ones.
+     */
+    static String getAttribute(Tag<?> tag, QName name) {
+        if (ID.equals(name) && tag instanceof Identifiable) {
+            return ((Identifiable<?>) tag).getId();
+        }
+        TagBinding binding = BINDINGS.get(tag.getClass());
+        if (binding != null) {
+            PropertyBinding property = binding.getAttribute(name);
+            if (property != null) {
+                Object value = property.get(tag);
+                return value == null ? null : property.isCollection() ? value.toString() : property.print(value);
+            }
+        }
+        if (tag instanceof Tolerant) {
+            Object value = ((Tolerant<?>) tag).getCustomAttributes().get(name);
+            return value == null ? null : value.toString();
+        }
+        return null;
+    }
+
+    // </editor-fold>
+
+    /**
+     * Step of query matching tag name and attributes.
+     */
+    static final class Step
+    {
+
+        private final String name;
+        private final Condition[] conditions;
+
+        /**
+         * @param name tag name or <code>null</code> to match any tag.
+         * @param conditions attribute conditions.
+         */
+        Step(String name, List<Condition> conditions) {
+            this.name = name;
+            this.conditions = conditions.toArray(new Condition[conditions.size()]);
+        }
+
+        boolean matches(Tag<?> tag) {
+            if (name != null && !name.equals(tag.getTagName())) {
+                return false;
+            }
+            for (Condition condition : conditions) {
+                if (!condition.matches(tag)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Get identifier required by this step.
+         * @return Identifier or <code>null</code> if step does not require any.
+         */
+        String getId() {
+            for (Condition condition : conditions) {
+                if (ID.equals(condition.name) && condition.value != null && !condition.negated) {
+                    return condition.value;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Condition on attribute presence or value.
+     */
+    static final class Condition
+    {
+
+        private final QName name;
+        private final String value;
+        private final boolean negated;
+
+        /**
+         * @param name attribute name.
+         * @param value expected value or <code>null</code> to check presence only.
+         * @param negated is value expected to differ.
+         */
+        Condition(QName name, String value, boolean negated) {
+            this.name = QNamePool.intern(name);
+            this.value = value;
+            this.negated = negated;
+        }
+
+        boolean matches(Tag<?> tag) {
+            String actual = getAttribute(tag, name);
+            if (actual == null) {
+                // Missing attribute is neither equal nor unequal to value, as in XPath.
+                return false;
+            }
+            return value == null || negated != value.equals(actual);
+        }
+    }
+}
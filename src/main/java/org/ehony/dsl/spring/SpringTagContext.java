@@ -7,18 +7,31 @@
 package org.ehony.dsl.spring;
 
 import org.ehony.dsl.api.TagContext;
-import org.springframework.context.ApplicationContext;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.*;
+import org.springframework.context.event.*;
 
 import javax.xml.bind.annotation.XmlTransient;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Proxy to Spring context.
+ * <p>Resolved singleton beans are cached per identifier and type, so repeated lookups bypass
+ * Spring. Prototype and scoped beans are always requested from Spring context. Cache is cleared
+ * when context is refreshed or closed, so context should be registered as listener of
+ * Spring context events.</p>
+ * <p>{@link #findBean(String, Class)} checks presence of beans and types of created singletons
+ * without locking Spring context, so lookups of missing optional beans stay cheap. Since no
+ * misses are remembered, beans registered at any time are found.</p>
  */
 @XmlTransient
-public class SpringTagContext implements TagContext
+public class SpringTagContext implements TagContext, ApplicationListener<ApplicationContextEvent>
 {
 
     private ApplicationContext context;
+    private volatile Map<List<Object>, Object> singletons = new ConcurrentHashMap<>();
 
     public SpringTagContext(ApplicationContext context) {
         this.context = context;
@@ -33,12 +46,68 @@ public class SpringTagContext implements TagContext
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T getBean(String id, Class<T> type) {
-        return context.getBean(id, type);
+        List<Object> key = Arrays.asList(id, type);
+        Map<List<Object>, Object> singletons = this.singletons;
+        Object bean = singletons.get(key);
+        if (bean == null) {
+            bean = context.getBean(id, type);
+            if (context.isSingleton(id)) {
+                // Bean resolved before context was refreshed is put to discarded cache.
+                singletons.put(key, bean);
+            }
+        }
+        return (T) bean;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> findBean(String id, Class<T> type) {
+        Object bean = singletons.get(Arrays.asList(id, type));
+        if (bean != null) {
+            return Optional.of((T) bean);
+        }
+        // Both registries are concurrent maps, so missing bean is detected without locking.
+        if (!context.containsBean(id)) {
+            return Optional.empty();
+        }
+        Object singleton = getSingleton(id);
+        if (singleton != null && !(singleton instanceof FactoryBean)) {
+            if (type != null && !type.isInstance(singleton)) {
+                return Optional.empty();
+            }
+        } else if (type != null && !context.isTypeMatch(id, type)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(getBean(id, type));
+    }
+
+    /**
+     * Get created singleton without triggering its creation.
+     * @return Singleton or <code>null</code> if bean is not a created singleton or context is not active.
+     */
+    private Object getSingleton(String id) {
+        if (context instanceof ConfigurableApplicationContext) {
+            try {
+                ConfigurableListableBeanFactory beans = ((ConfigurableApplicationContext) context).getBeanFactory();
+                return beans.containsSingleton(id) ? beans.getSingleton(id) : null;
+            } catch (IllegalStateException e) {
+                // Context is not refreshed yet or was closed.
+            }
+        }
+        return null;
     }
 
     @Override
     public ClassLoader getClassLoader() {
         return context.getClassLoader();
     }
+
+    @Override
+    public void onApplicationEvent(ApplicationContextEvent event) {
+        if (event instanceof ContextRefreshedEvent || event instanceof ContextClosedEvent) {
+            singletons = new ConcurrentHashMap<>();
+        }
+    }
 }
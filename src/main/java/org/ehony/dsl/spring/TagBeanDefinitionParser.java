@@ -24,6 +24,8 @@ public class TagBeanDefinitionParser extends AbstractBeanDefinitionParser
 
     private Class<? extends Tag> type;
     private String classpath;
+    private boolean lazy;
+    private TagSnapshotCache snapshots;
 
     /**
      * Create new bean parser instance to process tags of given type.
@@ -50,12 +52,80 @@ public class TagBeanDefinitionParser extends AbstractBeanDefinitionParser
         this.classpath = classpath;
     }
 
+    /**
+     * Are tags parsed by this parser materialized on first use.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Enable or disable deferred materialization of parsed tags.
+     * <p>Lazy tag beans are not initialized on context startup. Unmarshalling is deferred
+     * until tag is first requested from context. If tag type is an interface then
+     * on-demand proxy is injected into dependent beans and tag is materialized when
+     * the first method of the proxy is invoked.</p>
+     *
+     * @param lazy <code>true</code> to defer tag materialization.
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Get snapshot cache of tags parsed by this parser.
+     */
+    public TagSnapshotCache getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Set snapshot cache of tags parsed by this parser.
+     * <p>Tags found in cache are decoded instead of being unmarshalled from XML.</p>
+     *
+     * @param snapshots snapshot cache, can be empty.
+     */
+    public void setSnapshots(TagSnapshotCache snapshots) {
+        this.snapshots = snapshots;
+    }
+
     @Override
     protected AbstractBeanDefinition parseInternal(Element element, ParserContext parserContext) {
-        return rootBeanDefinition(TagFactoryBean.class)
+        BeanDefinitionBuilder builder = rootBeanDefinition(TagFactoryBean.class)
                 .addConstructorArgValue(element)
                 .addConstructorArgValue(type)
                 .addConstructorArgValue(classpath)
-                .getBeanDefinition();
+                .addPropertyValue("lazy", lazy);
+        if (snapshots != null) {
+            builder.addPropertyValue("snapshots", snapshots);
+        }
+        AbstractBeanDefinition definition = builder.getBeanDefinition();
+        definition.setLazyInit(lazy);
+        return definition;
+    }
+
+    // <editor-fold desc="Fluent API">
+
+    /**
+     * Defer materialization of parsed tags until the first use.
+     * @return Original parser instance.
+     * @see #setLazy(boolean)
+     */
+    public TagBeanDefinitionParser lazy() {
+        setLazy(true);
+        return this;
     }
+
+    /**
+     * Cache parsed tags in snapshot file.
+     * @param snapshots snapshot cache.
+     * @return Original parser instance.
+     * @see #setSnapshots(TagSnapshotCache)
+     */
+    public TagBeanDefinitionParser snapshots(TagSnapshotCache snapshots) {
+        setSnapshots(snapshots);
+        return this;
+    }
+
+    // </editor-fold>
 }
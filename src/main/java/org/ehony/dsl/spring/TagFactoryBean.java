@@ -7,20 +7,27 @@
 package org.ehony.dsl.spring;
 
 import org.ehony.dsl.NestedTagProcessor;
-import org.ehony.dsl.annotation.AnnotationVisitor;
+import org.ehony.dsl.UnmarshallerPool;
 import org.ehony.dsl.api.ContainerTag;
-import org.ehony.dsl.api.NestedTag;
 import org.ehony.dsl.api.Tag;
 import org.springframework.beans.factory.config.AbstractFactoryBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
 import org.w3c.dom.Element;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
+import java.lang.reflect.*;
 
 /**
  * Bean that constructs JAXB-compatible {@link Tag} instance from provided XML element.
+ * <p>JAXB context is shared by all factory beans which use the same classpath and bean class loader.</p>
+ * <p>In {@linkplain #setLazy(boolean) lazy} mode, when tag type is an interface, factory returns
+ * proxy and unmarshalling, nested tags processing and context assignment are deferred until the
+ * first tag method of this proxy is invoked. Each proxy materializes its own tag, so prototype
+ * factories return independent tags.</p>
+ *
+ * @see UnmarshallerPool
  */
 public class TagFactoryBean
         extends AbstractFactoryBean<Tag>
@@ -30,9 +37,12 @@ public class TagFactoryBean
     private Element node;
     private Class<Tag> type;
     private String classpath;
+    private ClassLoader loader = ClassUtils.getDefaultClassLoader();
     private ApplicationContext context;
-    private Unmarshaller mapper;
-    private AnnotationVisitor<ContainerTag> visitor;
+    private volatile SpringTagContext tagContext;
+    private volatile UnmarshallerPool pool;
+    private boolean lazy;
+    private TagSnapshotCache snapshots;
 
     /**
      * Create new factory bean that can construct bean of given type
@@ -51,6 +61,20 @@ public class TagFactoryBean
     @Override
     public void setApplicationContext(ApplicationContext context) {
         this.context = context;
+        tagContext = new SpringTagContext(context);
+        if (context instanceof ConfigurableApplicationContext) {
+            // Cached beans must be dropped when context is refreshed.
+            ((ConfigurableApplicationContext) context).addApplicationListener(tagContext);
+            if (snapshots != null) {
+                ((ConfigurableApplicationContext) context).addApplicationListener(snapshots);
+            }
+        }
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader loader) {
+        super.setBeanClassLoader(loader);
+        this.loader = loader;
     }
 
     @Override
@@ -58,18 +82,115 @@ public class TagFactoryBean
         return type;
     }
 
+    /**
+     * Is tag materialization deferred until the first use.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Enable or disable deferred materialization of interface-typed tag.
+     * <p>Tags of other types are materialized on factory initialization, so their
+     * bean definitions should be lazy-initialized instead.</p>
+     *
+     * @param lazy <code>true</code> to defer unmarshalling until tag is first used.
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Get snapshot cache of tag tree.
+     */
+    public TagSnapshotCache getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Set snapshot cache of tag tree.
+     * <p>If cache contains tree parsed from the same element, it is decoded instead of
+     * being unmarshalled. Otherwise unmarshalled tree is added to cache.</p>
+     *
+     * @param snapshots snapshot cache, can be empty.
+     */
+    public void setSnapshots(TagSnapshotCache snapshots) {
+        this.snapshots = snapshots;
+    }
+
     @Override
     protected Tag createInstance() throws Exception {
-        if (mapper == null) {
-            mapper = JAXBContext.newInstance(classpath).createUnmarshaller();
-            visitor = new AnnotationVisitor<>();
-            visitor.bindProcessor(NestedTag.class, new NestedTagProcessor());
+        if (lazy && type.isInterface()) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new LazyTag()));
         }
-        Tag tag = type.cast(mapper.unmarshal(node));
-        if (tag instanceof ContainerTag) {
-            visitor.process((ContainerTag) tag);
+        return unmarshal();
+    }
+
+    private Tag unmarshal() throws Exception {
+        String key = snapshots == null ? null : TagSnapshotCache.getKey(node, type, classpath);
+        Tag tag = key == null ? null : snapshots.get(key, type);
+        if (tag == null) {
+            UnmarshallerPool pool = this.pool;
+            if (pool == null) {
+                this.pool = pool = UnmarshallerPool.of(loader, classpath);
+            }
+            tag = type.cast(pool.unmarshal(node));
+            if (tag instanceof ContainerTag) {
+                NestedTagProcessor.wire((ContainerTag) tag);
+            }
+            if (key != null) {
+                snapshots.put(key, tag);
+            }
         }
-        tag.setContext(new SpringTagContext(context));
+        SpringTagContext tagContext = this.tagContext;
+        if (tagContext == null) {
+            this.tagContext = tagContext = new SpringTagContext(context);
+        }
+        tag.setContext(tagContext);
         return tag;
     }
+
+    /**
+     * Handler of lazy proxy which materializes its own tag on the first use.
+     * <p>Methods of {@link Object} do not materialize tag: proxy is equal only to itself
+     * and is described by expected type until tag is materialized.</p>
+     */
+    private final class LazyTag implements InvocationHandler
+    {
+
+        private volatile Tag instance;
+
+        private Tag materialize() throws Exception {
+            Tag tag = instance;
+            if (tag == null) {
+                synchronized (this) {
+                    tag = instance;
+                    if (tag == null) {
+                        instance = tag = unmarshal();
+                    }
+                }
+            }
+            return tag;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        Tag tag = instance;
+                        return tag != null ? tag.toString() : "lazy " + type.getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                }
+            }
+            try {
+                return method.invoke(materialize(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
 }
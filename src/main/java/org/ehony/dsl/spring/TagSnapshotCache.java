@@ -0,0 +1,319 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.spring;
+
+import org.apache.commons.logging.*;
+import org.ehony.dsl.api.Tag;
+import org.ehony.dsl.binding.TagCodec;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.*;
+import org.w3c.dom.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Persistent cache of tag trees parsed from Spring XML context, stored in memory-mapped snapshot file.
+ * <p>Trees are encoded with {@link TagCodec} and are keyed by digest of source element along with
+ * tag type and JAXB classpath. If snapshot file is missing, corrupted or written for different
+ * version of tag classes, affected trees are silently parsed from source elements as usual.</p>
+ * <p>Snapshot is rewritten when application context is refreshed or closed if any tree was added
+ * to cache, it then contains only trees which were requested by current process.</p>
+ *
+ * @see TagBeanDefinitionParser#snapshots(TagSnapshotCache)
+ */
+public class TagSnapshotCache implements ApplicationListener<ApplicationContextEvent>
+{
+
+    private static final Log LOG = LogFactory.getLog(TagSnapshotCache.class);
+
+    private static final int MAGIC = 0x44534C53;
+    private static final int VERSION = 1;
+
+    /**
+     * Minimum size of index entry: key length, offset and length.
+     */
+    private static final int ENTRY_SIZE = 2 + 8 + 4;
+
+    private final Path file;
+    private Map<String, ByteBuffer> loaded;
+    private Map<String, ByteBuffer> used = new LinkedHashMap<>();
+    private Set<String> unsupported = new HashSet<>();
+    private boolean dirty;
+
+    /**
+     * Create cache backed by given snapshot file.
+     * <p>Snapshot is loaded on first lookup.</p>
+     *
+     * @param file snapshot file, may not exist.
+     */
+    public TagSnapshotCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Get snapshot file of this cache.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Compute cache key of tag tree parsed from given element.
+     *
+     * @param node source element.
+     * @param type expected tag type.
+     * @param classpath JAXB classpath used to parse element.
+     * @return Cache key.
+     */
+    public static String getKey(Element node, Class<?> type, String classpath) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, type.getName());
+        update(digest, classpath);
+        update(digest, node);
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(UTF_8));
+        }
+        // Separator prevents ambiguous concatenations.
+        digest.update((byte) 0);
+    }
+
+    private static void update(MessageDigest digest, Node node) {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                digest.update((byte) 1);
+                update(digest, node.getNamespaceURI());
+                update(digest, node.getLocalName());
+                NamedNodeMap attributes = node.getAttributes();
+                SortedMap<String, String> sorted = new TreeMap<>();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    Node attribute = attributes.item(i);
+                    sorted.put("{" + attribute.getNamespaceURI() + "}" + attribute.getLocalName(), attribute.getNodeValue());
+                }
+                for (Map.Entry<String, String> attribute : sorted.entrySet()) {
+                    update(digest, attribute.getKey());
+                    update(digest, attribute.getValue());
+                }
+                for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    update(digest, child);
+                }
+                digest.update((byte) 2);
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                digest.update((byte) 3);
+                update(digest, node.getNodeValue());
+                break;
+        }
+    }
+
+    /**
+     * Get cached tag tree.
+     *
+     * @param key cache key.
+     * @param type expected tag type.
+     * @return Decoded tag tree or <code>null</code> if there is no valid tree of expected type in cache.
+     */
+    public synchronized <Type> Type get(String key, Class<Type> type) {
+        if (loaded == null) {
+            loaded = load();
+        }
+        ByteBuffer buffer = used.get(key);
+        if (buffer == null) {
+            buffer = loaded.get(key);
+        }
+        if (buffer != null) {
+            try {
+                Object tag = new TagCodec(type.getClassLoader()).decode(buffer.duplicate());
+                if (type.isInstance(tag)) {
+                    used.put(key, buffer);
+                    return type.cast(tag);
+                }
+            } catch (IOException | RuntimeException | LinkageError e) {
+                // Snapshot is stale or corrupted, tree would be parsed again.
+            }
+            loaded.remove(key);
+        }
+        return null;
+    }
+
+    /**
+     * Add tag tree to cache.
+     * <p>Tree is encoded immediately, so later modifications of tree are not cached. Trees which
+     * use JAXB mapping not supported by {@link TagCodec} are not cached.</p>
+     *
+     * @param key cache key.
+     * @param tag root tag.
+     * @return <code>true</code> if tree was added to cache.
+     */
+    public synchronized boolean put(String key, Tag tag) {
+        if (unsupported.contains(key)) {
+            return false;
+        }
+        try {
+            used.put(key, new TagCodec().encode(tag));
+        } catch (IllegalArgumentException e) {
+            unsupported.add(key);
+            LOG.debug("Tag tree cannot be cached: " + e.getMessage());
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Write snapshot file if cache was modified.
+     * @throws IOException if file cannot be written.
+     */
+    public synchronized void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, WRITE, TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream index = new DataOutputStream(bytes);
+            index.writeInt(MAGIC);
+            index.writeInt(VERSION);
+            index.writeInt(used.size());
+            long offset = 0;
+            for (Map.Entry<String, ByteBuffer> entry : used.entrySet()) {
+                index.writeUTF(entry.getKey());
+                index.writeLong(offset);
+                index.writeInt(entry.getValue().remaining());
+                offset += entry.getValue().remaining();
+            }
+            write(out, ByteBuffer.wrap(bytes.toByteArray()));
+            for (ByteBuffer buffer : used.values()) {
+                write(out, buffer.duplicate());
+            }
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Map snapshot file and read its index.
+     */
+    private Map<String, ByteBuffer> load() {
+        Map<String, ByteBuffer> entries = new HashMap<>();
+        if (!Files.isRegularFile(file)) {
+            return entries;
+        }
+        try (FileChannel in = FileChannel.open(file, READ)) {
+            // Mapping remains valid after channel is closed.
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            DataInputStream index = new DataInputStream(new ByteBufferInputStream(buffer.duplicate()));
+            if (index.readInt() != MAGIC || index.readInt() != VERSION) {
+                return entries;
+            }
+            int count = index.readInt();
+            if (count < 0 || count > index.available() / ENTRY_SIZE) {
+                return entries;
+            }
+            String[] keys = new String[count];
+            long[] offsets = new long[count];
+            int[] lengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = index.readUTF();
+                offsets[i] = index.readLong();
+                lengths[i] = index.readInt();
+            }
+            int data = buffer.capacity() - index.available();
+            for (int i = 0; i < count; i++) {
+                if (offsets[i] < 0 || lengths[i] < 0 || data + offsets[i] + lengths[i] > buffer.capacity()) {
+                    entries.clear();
+                    return entries;
+                }
+                ByteBuffer entry = buffer.duplicate();
+                entry.position((int) (data + offsets[i])).limit((int) (data + offsets[i] + lengths[i]));
+                entries.put(keys[i], entry.slice());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Corrupted snapshot is ignored.
+            entries.clear();
+        }
+        return entries;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationContextEvent event) {
+        if (event instanceof ContextRefreshedEvent || event instanceof ContextClosedEvent) {
+            try {
+                flush();
+            } catch (IOException e) {
+                // Cache is optional, context must not fail because of it.
+                LOG.warn("Cannot write tag snapshot file " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Stream view of byte buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream
+    {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
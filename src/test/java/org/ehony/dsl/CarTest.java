@@ -15,7 +15,10 @@ import org.apache.commons.io.IOUtils;
 import org.ehony.dsl.annotation.AnnotationVisitor;
 import org.ehony.dsl.api.ContainerTag;
 import org.ehony.dsl.api.NestedTag;
+import org.ehony.dsl.api.Tag;
+import org.ehony.dsl.api.TagContext;
 import org.example.Car;
+import org.example.Engine;
 import org.junit.Before;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
@@ -23,11 +26,15 @@ import org.skyscreamer.jsonassert.JSONAssert;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
 import java.io.ByteArrayOutputStream;
+import java.util.List;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertEquals;
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static java.util.Collections.singletonList;
 import static org.example.Brand.Porsche;
+import static org.junit.Assert.*;
 
 public class CarTest
 {
@@ -54,6 +61,141 @@ public class CarTest
         assertEquals("car", car.getTagName());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResolveContext() throws Exception {
+        Engine engine = car.engine;
+        BasicTagContext context = new BasicTagContext();
+        car.setContext(context);
+        assertSame(context, engine.resolveContext());
+
+        BasicTagContext other = new BasicTagContext();
+        car.setContext(other);
+        assertSame(other, engine.resolveContext());
+
+        Car garage = new Car();
+        garage.appendChild(engine);
+        assertNull(engine.resolveContext());
+        engine.setParentTag(car);
+        assertSame(other, engine.resolveContext());
+        engine.setContext(context);
+        assertSame(context, engine.resolveContext());
+
+        engine.setContext(null);
+        car.setContext(null);
+        assertNull(engine.resolveContext());
+        Car outer = new Car();
+        outer.setContext(context);
+        ((List) outer.getChildren()).add(car);
+        assertSame(context, engine.resolveContext());
+        car.setContext(other);
+        assertSame(other, engine.resolveContext());
+        outer.setContext(new BasicTagContext());
+        assertSame(other, engine.resolveContext());
+        car.setContext(null);
+        assertSame(outer.getContext(), engine.resolveContext());
+        outer.freeze();
+        assertSame(outer.getContext(), engine.resolveContext());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFreeze() throws Exception {
+        Engine engine = car.engine;
+        try {
+            engine.freeze();
+            fail("Child of mutable container cannot be frozen.");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        car.freeze();
+        assertTrue(engine.isFrozen());
+        assertSame(engine, car.getChildren().get(0));
+        assertSame(car, engine.getParentTag());
+        assertEquals("E95", engine.getCustomAttributes().get(new QName("petrol")));
+        try {
+            car.getChildren().remove(0);
+            fail("Children of frozen tag are immutable.");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        try {
+            engine.getCustomAttributes().put(new QName("petrol"), "E98");
+            fail("Custom attributes of frozen tag are immutable.");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        try {
+            engine.setId("M28.02");
+            fail("Frozen tag is immutable.");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        Car other = new Car();
+        try {
+            ((List) other.getChildren()).add(car);
+            fail("Frozen tag cannot be attached.");
+        } catch (IllegalStateException e) {
+            assertTrue(other.getChildren().isEmpty());
+        }
+        Engine spare = other.engine();
+        try {
+            spare.setParentTag(car);
+            fail("Tag cannot be attached to frozen parent.");
+        } catch (IllegalStateException e) {
+            assertSame(other, spare.getParentTag());
+            assertEquals(1, other.getChildren().size());
+            assertEquals(1, car.getChildren().size());
+        }
+        Marshaller mapper = JAXBContext.newInstance(Car.class).createMarshaller();
+        mapper.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapper.marshal(car, out);
+        assertXMLEqual(IOUtils.toString(Car.class.getResourceAsStream("/car.xml")), out.toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFreezeUnsupported() throws Exception {
+        Tag<Car> plain = new Tag<Car>() {
+
+            private Car parent;
+
+            @Override
+            public Car getParentTag() {
+                return parent;
+            }
+
+            @Override
+            public Car setParentTag(Car parent) {
+                Car previous = this.parent;
+                this.parent = parent;
+                return previous;
+            }
+
+            @Override
+            public TagContext getContext() {
+                return null;
+            }
+
+            @Override
+            public void setContext(TagContext context) {
+            }
+        };
+        ((List) car.getChildren()).add(plain);
+        try {
+            car.freeze();
+            fail("Tree with tag which cannot be frozen.");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        assertFalse(car.isFrozen());
+        assertFalse(car.engine.isFrozen());
+        car.getChildren().remove(plain);
+        car.freeze();
+        assertTrue(car.engine.isFrozen());
+    }
+
     @Test
     public void testJaxbToXml() throws Exception {
         Marshaller mapper = JAXBContext.newInstance(Car.class).createMarshaller();
@@ -78,6 +220,22 @@ public class CarTest
         assertEquals(car.toString(), observed.toString());
     }
 
+    @Test
+    public void testNestedTagWithoutValue() throws Exception {
+        Car observed = new Car();
+        NestedTagProcessor.wire(observed);
+        assertTrue(observed.getChildren().isEmpty());
+
+        AnnotationVisitor<ContainerTag> visitor = new AnnotationVisitor<>();
+        visitor.bindProcessor(NestedTag.class, new NestedTagProcessor());
+        visitor.process(observed);
+        assertTrue(observed.getChildren().isEmpty());
+
+        observed.engine = new Engine();
+        NestedTagProcessor.wire(observed);
+        assertEquals(singletonList(observed.engine), observed.getChildren());
+    }
+
     private ObjectMapper createJaxbObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
 
@@ -0,0 +1,109 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CompactMapTest
+{
+
+    @Test
+    public void testSmallMap() throws Exception {
+        Map<String, Object> map = new CompactMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put("a", 1));
+        assertNull(map.put(null, 2));
+        assertNull(map.put("c", null));
+        assertEquals(1, map.put("a", 4));
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey("c"));
+        assertEquals(2, map.get(null));
+        assertEquals(Arrays.asList("a", null, "c"), new ArrayList<>(map.keySet()));
+        assertEquals(2, map.remove(null));
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<>(map.keySet()));
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("a", 4);
+        expected.put("c", null);
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        Map<String, Object> map = new CompactMap<>();
+        for (int i = 0; i < 5; i++) {
+            map.put("k" + i, i);
+        }
+        for (Iterator<Map.Entry<String, Object>> i = map.entrySet().iterator(); i.hasNext(); ) {
+            Map.Entry<String, Object> entry = i.next();
+            if ((Integer) entry.getValue() % 2 == 0) {
+                i.remove();
+            } else {
+                entry.setValue("odd");
+            }
+        }
+        assertEquals(Arrays.asList("k1", "k3"), new ArrayList<>(map.keySet()));
+        assertEquals(Arrays.asList("odd", "odd"), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    public void testFreeze() throws Exception {
+        Map<String, Object> map = new CompactMap<>();
+        map.put("a", 1);
+        map.put("b", null);
+        Map<String, Object> frozen = CompactMap.freeze(map);
+        assertEquals(map, frozen);
+        assertTrue(frozen.containsKey("b"));
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(frozen.keySet()));
+        try {
+            frozen.put("c", 3);
+            fail("Frozen map is immutable.");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        try {
+            frozen.entrySet().iterator().next().setValue(2);
+            fail("Frozen map is immutable.");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        assertSame(Collections.emptyMap(), CompactMap.freeze(new CompactMap<>()));
+    }
+
+    @Test
+    public void testRandomOperations() throws Exception {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> observed = new CompactMap<>();
+        for (int i = 0; i < 20000; i++) {
+            // Range of keys lets map grow past threshold.
+            Integer key = random.nextInt(CompactMap.THRESHOLD * 2);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, i), observed.put(key, i));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), observed.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), observed.get(key));
+                    if (random.nextInt(100) == 0) {
+                        expected.clear();
+                        observed.clear();
+                    }
+            }
+            assertEquals(expected.size(), observed.size());
+        }
+        assertEquals(expected, observed);
+    }
+}
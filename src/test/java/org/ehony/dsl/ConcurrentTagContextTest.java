@@ -0,0 +1,75 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentTagContextTest
+{
+
+    private final ConcurrentTagContext context = new ConcurrentTagContext().bean("name", "Test").bean("empty", null);
+
+    @Test
+    public void testGetBean() throws Exception {
+        assertEquals("Test", context.getBean("name", String.class));
+        assertEquals("Test", context.getBean("name", CharSequence.class));
+        assertEquals("Test", context.getBean("name", String.class));
+        assertEquals("Test", context.getBean("name", null));
+        assertNull(context.getBean("empty", null));
+        assertEquals(new HashSet<>(Arrays.asList("name", "empty")), context.getBeanIds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongType() throws Exception {
+        context.getBean("name", String.class);
+        context.getBean("name", Integer.class);
+    }
+
+    @Test
+    public void testReplaceBean() throws Exception {
+        assertEquals("Test", context.getBean("name", String.class));
+        assertEquals("Test", context.putBean("name", 42));
+        try {
+            context.getBean("name", String.class);
+            fail("Replaced bean must be verified again.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        assertEquals(Integer.valueOf(42), context.removeBean("name"));
+        assertFalse(context.getBeanIds().contains("name"));
+    }
+
+    @Test
+    public void testConcurrentRegistration() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10000; j++) {
+                        String id = thread + "-" + j;
+                        context.putBean(id, j);
+                        assertEquals(Integer.valueOf(j), context.getBean(id, Integer.class));
+                        assertEquals("Test", context.getBean("name", String.class));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40002, context.getBeanIds().size());
+    }
+}
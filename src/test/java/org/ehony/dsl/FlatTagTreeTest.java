@@ -0,0 +1,114 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.ehony.dsl.FlatTagTree.NONE;
+import static org.junit.Assert.*;
+
+public class FlatTagTreeTest
+{
+
+    public static class Node extends ContainerBaseTag<Node, Node>
+    {
+
+        public Node child(String id) {
+            Node node = appendChild(new Node());
+            node.setId(id);
+            return node;
+        }
+    }
+
+    private Node root;
+    private FlatTagTree tree;
+
+    /**
+     * <pre>
+     * root
+     *   a
+     *     a1
+     *     a2
+     *   b
+     *     b1
+     *       b11
+     * </pre>
+     */
+    @Before
+    public void before() throws Exception {
+        root = new Node();
+        root.setId("root");
+        Node a = root.child("a");
+        a.child("a1");
+        a.child("a2");
+        root.child("b").child("b1").child("b11");
+        tree = FlatTagTree.of(root);
+    }
+
+    private int index(String id) {
+        for (int i = 0; i < tree.size(); i++) {
+            if (id.equals(((Node) tree.getTag(i)).getId())) {
+                return i;
+            }
+        }
+        throw new AssertionError(id);
+    }
+
+    @Test
+    public void testPreOrder() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i != NONE; i = tree.next(0, i)) {
+            ids.add(((Node) tree.getTag(i)).getId());
+        }
+        assertEquals(Arrays.asList("root", "a", "a1", "a2", "b", "b1", "b11"), ids);
+        assertEquals(7, tree.size());
+        assertSame(root, tree.getTag(0));
+        assertEquals(index("b1"), tree.indexOf(((Node) root.getChildren().get(1)).getChildren().get(0)));
+        assertEquals(NONE, tree.indexOf(new Node()));
+    }
+
+    @Test
+    public void testStructure() throws Exception {
+        assertEquals(NONE, tree.getParent(0));
+        assertEquals(index("a"), tree.getParent(index("a2")));
+        assertEquals(index("a"), tree.getFirstChild(0));
+        assertEquals(index("b"), tree.getNextSibling(index("a")));
+        assertEquals(NONE, tree.getNextSibling(index("b")));
+        assertEquals(NONE, tree.getFirstChild(index("a2")));
+        assertEquals(3, tree.getDepth(index("b11")));
+        assertEquals(3, tree.getSubtreeSize(index("b")));
+        assertEquals(tree.size(), tree.getSubtreeEnd(0));
+    }
+
+    @Test
+    public void testAncestor() throws Exception {
+        assertTrue(tree.isAncestor(0, index("b11")));
+        assertTrue(tree.isAncestor(index("b"), index("b11")));
+        assertFalse(tree.isAncestor(index("a"), index("b11")));
+        assertFalse(tree.isAncestor(index("b11"), index("b")));
+        assertFalse(tree.isAncestor(index("b"), index("b")));
+    }
+
+    @Test
+    public void testDeepTree() throws Exception {
+        Node leaf = new Node();
+        Node node = leaf;
+        // Tree is built bottom-up, since attaching checks ancestors for cycles.
+        for (int i = 0; i < 100000; i++) {
+            Node parent = new Node();
+            parent.appendChild(node);
+            node = parent;
+        }
+        FlatTagTree deep = FlatTagTree.of(node);
+        assertEquals(100001, deep.size());
+        assertEquals(100000, deep.getDepth(deep.indexOf(leaf)));
+        assertTrue(deep.isAncestor(0, deep.size() - 1));
+    }
+}
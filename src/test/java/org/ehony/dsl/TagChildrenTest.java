@@ -7,8 +7,11 @@
 package org.ehony.dsl;
 
 import org.ehony.dsl.api.ContainerTag;
+import org.ehony.dsl.api.Tag;
 import org.junit.*;
 
+import java.util.*;
+
 import static org.junit.Assert.*;
 
 public class TagChildrenTest
@@ -103,4 +106,237 @@ public class TagChildrenTest
         children.add(2, new B(2));
         assertEquals("[0, 1, 2]", children.toString());
     }
+
+    @Test
+    public void testInsertCenterOfContainer() {
+        A a = new A();
+        a.appendChild(new B(0));
+        a.appendChild(new B(1));
+        a.getChildren().add(1, new B(2));
+        assertEquals("[0, 2, 1]", a.getChildren().toString());
+    }
+
+    @Test
+    public void testIdentity() {
+        class C extends B
+        {
+
+            C(int i) {
+                super(i);
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                return obj instanceof C;
+            }
+
+            @Override
+            public int hashCode() {
+                return 0;
+            }
+        }
+        C c = new C(3);
+        children.add(c);
+        children.add(new C(4));
+        assertEquals("[0, 1, 3, 4]", children.toString());
+        assertEquals(2, children.indexOf(c));
+        assertFalse(children.contains(new C(3)));
+    }
+
+    @Test
+    public void testReparent() {
+        A a = new A(), b = new A();
+        B tag = a.appendChild(new B(0));
+        a.appendChild(new B(1));
+        tag.setParentTag(b);
+
+        assertEquals("[1]", a.getChildren().toString());
+        assertEquals(-1, a.getChildren().indexOf(tag));
+        assertEquals(0, b.getChildren().indexOf(tag));
+        assertSame(b, tag.getParentTag());
+    }
+
+    @Test
+    public void testPositionsConsistency() {
+        A a = new A();
+        List<B> expected = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int size = expected.size();
+            switch (random.nextInt(7)) {
+                case 0:
+                    B tag = new B(i);
+                    int offset = random.nextInt(size + 1);
+                    a.getChildren().add(offset, tag);
+                    expected.add(offset, tag);
+                    break;
+                case 1:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        assertSame(expected.remove(index), a.getChildren().remove(index));
+                    }
+                    break;
+                case 2:
+                    if (size > 0) {
+                        B moved = expected.remove(random.nextInt(size));
+                        a.appendChild(moved);
+                        expected.add(moved);
+                    }
+                    break;
+                case 3:
+                    List<B> batch = Arrays.asList(new B(i), new B(i), new B(i));
+                    int at = random.nextInt(size + 1);
+                    a.getChildren().addAll(at, batch);
+                    expected.addAll(at, batch);
+                    break;
+                case 4:
+                    int from = random.nextInt(size + 1), to = from + random.nextInt(size - from + 1);
+                    a.getChildren().subList(from, to).clear();
+                    expected.subList(from, to).clear();
+                    break;
+                case 5:
+                    if (size > 0) {
+                        B removed = expected.remove(random.nextInt(size));
+                        a.getChildren().removeIf(t -> t == removed);
+                    }
+                    break;
+                default:
+                    a.appendChild(new B(i));
+                    expected.add((B) a.getChildren().get(size));
+            }
+            if (i % 10 == 0) {
+                assertEquals(expected, a.getChildren());
+                for (int j = 0; j < expected.size(); j++) {
+                    assertEquals(j, a.getChildren().indexOf(expected.get(j)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReparentForward() {
+        A a = new A(), b = new A();
+        List<B> tags = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tags.add(a.appendChild(new B(i)));
+        }
+        for (B tag : tags) {
+            tag.setParentTag(b);
+            assertEquals(tags.indexOf(tag), b.getChildren().indexOf(tag));
+            if (!a.getChildren().isEmpty()) {
+                assertEquals(0, a.getChildren().indexOf(a.getChildren().get(0)));
+                assertEquals(a.getChildren().size() - 1, a.getChildren().lastIndexOf(tags.get(9)));
+            }
+        }
+        assertTrue(a.getChildren().isEmpty());
+        assertEquals(tags, b.getChildren());
+    }
+
+    @Test
+    public void testAddAll() {
+        List<Tag<? extends A>> configured = new ArrayList<>();
+        A a = new A() {
+
+            @Override
+            public void configureChild(Tag<? extends A> tag) {
+                configured.add(tag);
+            }
+        };
+        A b = new A();
+        B moved = b.appendChild(new B(0));
+        a.appendChild(new B(1));
+        a.getChildren().addAll(Arrays.asList(moved, new B(2), new B(3)));
+        a.getChildren().addAll(1, Arrays.asList(new B(4), new B(5)));
+
+        assertEquals("[1, 4, 5, 0, 2, 3]", a.getChildren().toString());
+        assertEquals(6, configured.size());
+        assertTrue(b.getChildren().isEmpty());
+        for (Tag<? extends A> tag : a.getChildren()) {
+            assertSame(a, tag.getParentTag());
+            assertTrue(configured.contains(tag));
+        }
+        assertEquals(3, a.getChildren().indexOf(moved));
+    }
+
+    @Test
+    public void testAddAllConfigurationFailure() {
+        A a = new A() {
+
+            @Override
+            public void configureChild(Tag<? extends A> tag) {
+                if (tag.toString().equals("3")) {
+                    throw new IllegalStateException();
+                }
+            }
+        };
+        A b = new A();
+        B moved = b.appendChild(new B(0));
+        B first = a.appendChild(new B(1));
+        try {
+            a.getChildren().addAll(0, Arrays.asList(moved, new B(2), new B(3)));
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(Collections.singletonList(first), a.getChildren());
+        assertEquals(0, a.getChildren().indexOf(first));
+        assertFalse(a.getChildren().contains(moved));
+        assertSame(b, moved.getParentTag());
+        assertEquals(Collections.singletonList(moved), b.getChildren());
+    }
+
+    @Test
+    public void testAddAllRearrange() {
+        A a = new A();
+        B b0 = a.appendChild(new B(0));
+        a.appendChild(new B(1));
+        a.getChildren().addAll(Arrays.asList(new B(2), b0));
+        assertEquals("[1, 2, 0]", a.getChildren().toString());
+    }
+
+    @Test
+    public void testRemoveIf() {
+        A a = new A();
+        List<B> tags = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            tags.add(a.appendChild(new B(i)));
+        }
+        assertTrue(a.getChildren().removeIf(tag -> ((B) tag).i % 2 == 1));
+        assertFalse(a.getChildren().removeIf(tag -> false));
+
+        assertEquals("[0, 2, 4]", a.getChildren().toString());
+        assertNull(tags.get(1).getParentTag());
+        assertSame(a, tags.get(2).getParentTag());
+        assertEquals(2, a.getChildren().indexOf(tags.get(4)));
+    }
+
+    @Test
+    public void testClear() {
+        A a = new A();
+        B b0 = a.appendChild(new B(0));
+        B b1 = a.appendChild(new B(1));
+        B b2 = a.appendChild(new B(2));
+        a.getChildren().subList(0, 2).clear();
+        assertEquals("[2]", a.getChildren().toString());
+        assertNull(b0.getParentTag());
+        assertNull(b1.getParentTag());
+        assertEquals(0, a.getChildren().indexOf(b2));
+
+        a.getChildren().clear();
+        assertTrue(a.getChildren().isEmpty());
+        assertNull(b2.getParentTag());
+    }
+
+    @Test
+    public void testReplaceAll() {
+        A a = new A();
+        B b0 = a.appendChild(new B(0));
+        B b1 = a.appendChild(new B(1));
+        a.getChildren().replaceAll(tag -> tag == b1 ? tag : new B(((B) tag).i + 10));
+
+        assertEquals("[10, 1]", a.getChildren().toString());
+        assertNull(b0.getParentTag());
+        assertSame(a, a.getChildren().get(0).getParentTag());
+        assertEquals(1, a.getChildren().indexOf(b1));
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.ehony.dsl.FlatTagTreeTest.Node;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+public class TagIdIndexTest
+{
+
+    private Node root, a, b;
+
+    @Before
+    public void before() throws Exception {
+        root = new Node();
+        root.setId("root");
+        a = root.child("a");
+        a.child("a1");
+        b = root.child("b");
+        b.child("b1").child("b11");
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        assertSame(root, root.getTagById("root"));
+        assertSame(a, root.getTagById("a"));
+        assertEquals("b11", ((Node) root.getTagById("b11")).getId());
+        assertNull(root.getTagById("missing"));
+        assertNull(root.getTagById(null));
+        assertEquals(emptySet(), root.getDuplicateIds());
+    }
+
+    @Test
+    public void testSubtreeLookup() throws Exception {
+        assertSame(a, a.getTagById("a"));
+        assertNotNull(a.getTagById("a1"));
+        assertNull(a.getTagById("b1"));
+        assertNull(a.getTagById("root"));
+    }
+
+    @Test
+    public void testAttachDetach() throws Exception {
+        assertNotNull(root.getTagById("b1"));
+        root.getChildren().remove(b);
+        assertNull(root.getTagById("b"));
+        assertNull(root.getTagById("b11"));
+        assertSame(b, b.getTagById("b"));
+        assertNotNull(b.getTagById("b11"));
+
+        b.setParentTag(a);
+        assertSame(b, root.getTagById("b"));
+        assertNotNull(root.getTagById("b11"));
+        assertNull(b.index);
+
+        Node c = new Node().id("c");
+        c.child("c1");
+        assertSame(c, c.getTagById("c"));
+        root.appendChild(c);
+        assertNull(c.index);
+        assertNotNull(root.getTagById("c1"));
+        root.getChildren().clear();
+        assertNull(root.getTagById("a"));
+        assertNull(root.getTagById("c1"));
+        assertSame(root, root.getTagById("root"));
+    }
+
+    @Test
+    public void testIdChange() throws Exception {
+        assertSame(a, root.getTagById("a"));
+        a.setId("x");
+        assertNull(root.getTagById("a"));
+        assertSame(a, root.getTagById("x"));
+        a.setId(null);
+        assertNull(root.getTagById("x"));
+    }
+
+    @Test
+    public void testDuplicates() throws Exception {
+        assertEquals(emptySet(), root.getDuplicateIds());
+        Node other = a.child("b");
+        assertEquals(singleton("b"), root.getDuplicateIds());
+        assertEquals(new HashSet<>(asList(b, other)), new HashSet<>(root.getTagsById("b")));
+        assertEquals(singletonList(other), a.getTagsById("b"));
+
+        other.setId("c");
+        assertEquals(emptySet(), root.getDuplicateIds());
+        assertSame(b, root.getTagById("b"));
+        other.setId("b");
+        root.getChildren().remove(b);
+        assertEquals(emptySet(), root.getDuplicateIds());
+        assertSame(other, root.getTagById("b"));
+    }
+
+    @Test
+    public void testFrozen() throws Exception {
+        root.freeze();
+        assertNotNull(root.index);
+        assertNull(a.index);
+        assertSame(a, root.getTagById("a"));
+        assertNotNull(b.getTagById("b11"));
+    }
+}
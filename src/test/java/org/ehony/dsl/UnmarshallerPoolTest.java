@@ -0,0 +1,56 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl;
+
+import org.example.Car;
+import org.example.Engine;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class UnmarshallerPoolTest
+{
+
+    @Test
+    public void testSharedContext() throws Exception {
+        UnmarshallerPool pool = UnmarshallerPool.of(Car.class, "org.example");
+        assertSame(pool, UnmarshallerPool.of(Car.class, "org.example"));
+        assertSame(pool.getContext(), UnmarshallerPool.of(Car.class, "org.example").getContext());
+        // Pools are shared by tag types loaded with the same class loader.
+        assertSame(pool, UnmarshallerPool.of(Engine.class, "org.example"));
+        assertSame(pool, UnmarshallerPool.of(Car.class.getClassLoader(), "org.example"));
+    }
+
+    private static Document parse() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(Car.class.getResourceAsStream("/car.xml"));
+    }
+
+    @Test
+    public void testConcurrentUnmarshal() throws Exception {
+        UnmarshallerPool pool = UnmarshallerPool.of(Car.class, "org.example");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                // DOM is not thread-safe, even for reading.
+                futures.add(executor.submit(() -> pool.unmarshal(parse().getDocumentElement())));
+            }
+            for (Future<Object> future : futures) {
+                assertEquals("my-car", ((Car) future.get()).getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
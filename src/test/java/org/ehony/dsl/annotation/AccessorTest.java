@@ -0,0 +1,91 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.annotation;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import static org.junit.Assert.*;
+
+public class AccessorTest
+{
+
+    static class Bean
+    {
+
+        static String shared;
+
+        private String name = "field";
+        int number = 42;
+
+        private String getName() {
+            return "method";
+        }
+
+        String echo(String value) {
+            return value;
+        }
+
+        String fail() throws IOException {
+            throw new IOException("checked");
+        }
+
+        String crash() {
+            throw new IllegalStateException("unchecked");
+        }
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        Bean bean = new Bean();
+        assertEquals("field", Accessor.of(Bean.class.getDeclaredField("name")).get(bean));
+        assertEquals(42, Accessor.of(Bean.class.getDeclaredField("number")).get(bean));
+        assertEquals("method", Accessor.of(Bean.class.getDeclaredMethod("getName")).get(bean));
+        bean.name = null;
+        assertNull(Accessor.of(Bean.class.getDeclaredField("name")).get(bean));
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        assertSame(Accessor.of(Bean.class.getDeclaredField("name")), Accessor.of(Bean.class.getDeclaredField("name")));
+    }
+
+    @Test
+    public void testExceptions() throws Exception {
+        try {
+            Accessor.of(Bean.class.getDeclaredMethod("crash")).get(new Bean());
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("unchecked", e.getMessage());
+        }
+        try {
+            Accessor.of(Bean.class.getDeclaredMethod("fail")).get(new Bean());
+            fail();
+        } catch (UndeclaredThrowableException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        for (AnnotatedElement element : new AnnotatedElement[] {
+                Bean.class,
+                Bean.class.getDeclaredField("shared"),
+                Bean.class.getDeclaredMethod("echo", String.class),
+                Bean.class.getDeclaredConstructor()}) {
+            try {
+                Accessor.of(element);
+                fail(element.toString());
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
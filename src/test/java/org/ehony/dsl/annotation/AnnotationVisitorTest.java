@@ -0,0 +1,73 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.annotation;
+
+import org.junit.Test;
+
+import java.lang.annotation.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AnnotationVisitorTest
+{
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+        String value();
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Other {
+    }
+
+    @Marker("interface")
+    interface I {}
+
+    @Marker("super")
+    static class A implements I
+    {
+
+        @Marker("a.field")
+        Object field;
+    }
+
+    @Marker("type")
+    static class B extends A
+    {
+
+        @Other
+        @Marker("b.method")
+        void method() {}
+    }
+
+    @Test
+    public void testProcessingOrder() {
+        List<String> observed = new ArrayList<>();
+        AnnotationVisitor<Object> visitor = new AnnotationVisitor<>();
+        visitor.bindProcessor(Marker.class, (annotation, target, element, elementType, type) -> observed.add(((Marker) annotation).value()));
+
+        visitor.process(new B());
+        assertEquals(Arrays.asList("interface", "a.field", "super", "b.method", "type"), observed);
+
+        observed.clear();
+        visitor.process(new B());
+        assertEquals(5, observed.size());
+    }
+
+    @Test
+    public void testBindAfterProcess() {
+        List<Class<?>> observed = new ArrayList<>();
+        AnnotationVisitor<Object> visitor = new AnnotationVisitor<>();
+        visitor.bindProcessor(Marker.class, (annotation, target, element, elementType, type) -> {});
+        visitor.process(new B());
+
+        visitor.bindProcessor(Other.class, (annotation, target, element, elementType, type) -> observed.add(type));
+        visitor.process(new B());
+        assertEquals(Collections.<Class<?>>singletonList(B.class), observed);
+    }
+}
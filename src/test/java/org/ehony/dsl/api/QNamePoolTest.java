@@ -0,0 +1,39 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.api;
+
+import org.example.Car;
+import org.example.Engine;
+import org.junit.Test;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.namespace.QName;
+
+import static org.junit.Assert.*;
+
+public class QNamePoolTest
+{
+
+    @Test
+    public void testIntern() throws Exception {
+        QName name = QNamePool.intern("http://ehony.org/", "intern-test");
+        assertSame(name, QNamePool.intern("http://ehony.org/", "intern-test"));
+        assertSame(name, QNamePool.intern(new QName("http://ehony.org/", "intern-test", "eh")));
+        assertSame(QNamePool.intern(null, "intern-test"), QNamePool.intern("", "intern-test"));
+        assertNotSame(name, QNamePool.intern(null, "intern-test"));
+    }
+
+    @Test
+    public void testCustomAttributes() throws Exception {
+        Engine built = new Engine().attribute("http://ehony.org/", "maintenance-year", "2014");
+        Car car = (Car) JAXBContext.newInstance(Car.class).createUnmarshaller().unmarshal(Car.class.getResource("/car.xml"));
+        QName parsed = car.engine.getCustomAttributes().keySet().stream()
+                .filter(name -> name.getLocalPart().equals("maintenance-year"))
+                .findFirst().get();
+        assertSame(built.getCustomAttributes().keySet().iterator().next(), parsed);
+    }
+}
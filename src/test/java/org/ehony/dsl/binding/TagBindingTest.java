@@ -0,0 +1,55 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.binding;
+
+import org.example.*;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+
+import static org.junit.Assert.*;
+
+public class TagBindingTest
+{
+
+    private static final String NS = "http://example.org/";
+
+    @Test
+    public void testCarBinding() throws Exception {
+        TagBinding binding = TagBinding.of(Car.class);
+        assertSame(binding, TagBinding.of(Car.class));
+        assertEquals(new QName(NS, "super-car"), binding.getName());
+        assertNotNull(binding.getAttribute(new QName("id")));
+        assertNotNull(binding.getAttribute(new QName("brand")));
+        assertEquals(2, binding.getAttributes().size());
+
+        PropertyBinding engine = binding.getElement(new QName(NS, "engine"));
+        assertEquals(Engine.class, engine.getType());
+        assertTrue(engine.isNested());
+        assertFalse(engine.isSimple());
+        assertEquals(1, binding.getElements().size());
+        assertTrue(binding.getNestedTags().isEmpty());
+    }
+
+    @Test
+    public void testPropertyConversion() throws Exception {
+        Car car = (Car) TagBinding.of(Car.class).newInstance();
+        TagBinding binding = TagBinding.of(Car.class);
+
+        PropertyBinding brand = binding.getAttribute(new QName("brand"));
+        brand.set(car, brand.parse("Jaguar"));
+        assertEquals(Brand.Jaguar, car.brand);
+        assertEquals("Jaguar", brand.print(car.brand));
+
+        PropertyBinding id = binding.getAttribute(new QName("id"));
+        id.set(car, id.parse("  my-car "));
+        assertEquals("my-car", car.getId());
+
+        binding.getCustomAttributes(car).put(new QName("petrol"), "E95");
+        assertEquals("E95", car.getCustomAttributes().get(new QName("petrol")));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.binding;
+
+import org.ehony.dsl.ContainerBaseTag;
+import org.ehony.dsl.api.NestedTag;
+import org.example.Car;
+import org.example.Engine;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.bind.annotation.XmlElement;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.example.Brand.Porsche;
+import static org.junit.Assert.*;
+
+public class TagCodecTest
+{
+
+    private Car car;
+    private TagCodec codec = new TagCodec();
+
+    @Before
+    public void before() throws Exception {
+        car = new Car()
+                .id("my-car")
+                .brand(Porsche)
+                .engine()
+                    .id("M28.01")
+                    .gears(5)
+                    .attribute("http://ehony.org/", "maintenance-year", "2014")
+                    .attribute("petrol", "E95")
+                .end();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ByteBuffer buffer = codec.encode(car);
+        Car observed = (Car) codec.decode(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(car.toString(), observed.toString());
+        assertSame(observed, observed.engine.getParentTag());
+        assertEquals(Integer.valueOf(5), observed.engine.gears);
+    }
+
+    @Test
+    public void testChannelRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(car, Channels.newChannel(out));
+        Object observed = codec.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(car.toString(), observed.toString());
+    }
+
+    @Test
+    public void testStringTable() throws Exception {
+        int distinct = codec.encode(car).remaining();
+        car.engine.id("my-car");
+        // Repeated strings are written once and then referenced.
+        assertTrue(codec.encode(car).remaining() < distinct - 5);
+        assertEquals("my-car", ((Car) codec.decode(codec.encode(car))).engine.getId());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testCorruptedData() throws Exception {
+        ByteBuffer buffer = codec.encode(car);
+        buffer.limit(buffer.limit() - 3);
+        codec.decode(buffer);
+    }
+
+    @Test(expected = InvalidClassException.class)
+    public void testIncompatibleLayout() throws Exception {
+        ByteBuffer buffer = codec.encode(car);
+        // Layout hash follows header and class name of root tag.
+        int offset = 7 + Car.class.getName().length();
+        buffer.put(offset, (byte) (buffer.get(offset) ^ 1));
+        codec.decode(buffer);
+    }
+
+    @Test
+    public void testRegisteredClasses() throws Exception {
+        TagCodec registered = new TagCodec(Car.class);
+        Car observed = (Car) registered.decode(codec.encode(car));
+        assertEquals(car.toString(), observed.toString());
+        try {
+            new TagCodec(Engine.class).decode(codec.encode(car));
+            fail();
+        } catch (InvalidClassException e) {
+            assertEquals(Car.class.getName(), e.classname);
+        }
+    }
+
+    @Test
+    public void testNonTagClass() throws Exception {
+        byte[] name = StringBuilder.class.getName().getBytes(UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        // Header, the first string table entry and layout hash.
+        buffer.putInt(0x44534C42).put((byte) 1).put((byte) 1).put((byte) name.length).put(name).putInt(0);
+        buffer.flip();
+        try {
+            codec.decode(buffer);
+            fail();
+        } catch (InvalidClassException e) {
+            assertEquals(StringBuilder.class.getName(), e.classname);
+        }
+        buffer.rewind();
+        try {
+            new TagCodec(Car.class).decode(buffer);
+            fail();
+        } catch (InvalidClassException e) {
+            assertEquals(StringBuilder.class.getName(), e.classname);
+        }
+    }
+
+    @Test
+    public void testMalformedStrings() throws Exception {
+        for (int reference : new int[] {5, 0x7F}) {
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            buffer.putInt(0x44534C42).put((byte) 1).put((byte) reference).flip();
+            try {
+                codec.decode(buffer);
+                fail();
+            } catch (StreamCorruptedException e) {
+                // expected
+            }
+        }
+        // String of 2 GiB in a few bytes of direct buffer.
+        ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+        buffer.putInt(0x44534C42).put((byte) 1).put((byte) 1).put(new byte[] {-1, -1, -1, -1, 7}).flip();
+        try {
+            codec.decode(buffer);
+            fail();
+        } catch (StreamCorruptedException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("length"));
+        }
+    }
+
+    @Test
+    public void testNestingDepth() throws Exception {
+        Link root = new Link();
+        for (int i = 1; i < TagCodec.MAX_DEPTH; i++) {
+            root = new Link().next(root);
+        }
+        assertNotNull(codec.decode(codec.encode(root)));
+        try {
+            codec.decode(codec.encode(new Link().next(root)));
+            fail();
+        } catch (StreamCorruptedException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("deeper"));
+        }
+    }
+
+    public static class Link extends ContainerBaseTag<Link, Link>
+    {
+
+        @NestedTag
+        @XmlElement
+        public Link next;
+
+        Link next(Link next) {
+            this.next = appendChild(next);
+            return this;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNonTagClass() throws Exception {
+        new TagCodec(String.class);
+    }
+}
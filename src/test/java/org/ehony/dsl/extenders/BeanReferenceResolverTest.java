@@ -0,0 +1,86 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.extenders;
+
+import org.ehony.dsl.ConcurrentTagContext;
+import org.ehony.dsl.api.*;
+import org.example.Car;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class BeanReferenceResolverTest
+{
+
+    public static class Plugin extends BeanReferenceBaseTag<Plugin, Car, Runnable>
+    {
+
+        public Plugin(String id) {
+            super(id, Runnable.class);
+        }
+    }
+
+    private final Runnable first = () -> {};
+    private final Runnable second = () -> {};
+    private final ConcurrentTagContext context = new ConcurrentTagContext()
+            .bean("first", first)
+            .bean("second", second)
+            .bean("text", "Test");
+
+    @Test
+    public void testResolve() throws Exception {
+        Car car = new Car();
+        car.setContext(context);
+        Plugin a = car.appendChild(new Plugin("first"));
+        Plugin b = car.appendChild(new Plugin("second"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            new BeanReferenceResolver(executor).resolve(car);
+        } finally {
+            executor.shutdown();
+        }
+        context.removeBean("first");
+        assertSame(first, a.getBean());
+        assertSame(second, b.getBean());
+        assertEquals("first", a.getBeanRef());
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        Car car = new Car();
+        car.setContext(context);
+        Plugin resolved = car.appendChild(new Plugin("first"));
+        car.appendChild(new Plugin("missing")).setId("a");
+        car.appendChild(new Plugin("text")).setId("b");
+        try {
+            new BeanReferenceResolver().resolve(car);
+            fail("Validation exception expected.");
+        } catch (ValidationException e) {
+            assertTrue(e.getMessage().contains("#a -> missing"));
+            assertTrue(e.getMessage().contains("#b -> text"));
+            assertEquals(2, e.getSuppressed().length);
+        }
+        assertSame(first, resolved.getBean());
+    }
+
+    @Test
+    public void testTypeChange() throws Exception {
+        Car car = new Car();
+        car.setContext(context);
+        Plugin plugin = car.appendChild(new Plugin("first"));
+        assertSame(first, plugin.getBean());
+        plugin.setType(Thread.class);
+        try {
+            plugin.getBean();
+            fail("Bean must be checked against new type.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.query;
+
+import org.ehony.dsl.FlatTagTreeTest.Node;
+import org.ehony.dsl.api.Tag;
+import org.example.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.*;
+import static org.example.Brand.Porsche;
+import static org.junit.Assert.*;
+
+public class TagQueryTest
+{
+
+    private Car car;
+    private Node root, a, a1, a2, b, b1, b11;
+
+    /**
+     * <pre>
+     * root
+     *   a
+     *     a1
+     *     a2
+     *   b
+     *     b1
+     *       b11
+     * </pre>
+     */
+    @Before
+    public void before() throws Exception {
+        car = new Car()
+                .id("my-car")
+                .brand(Porsche)
+                .engine()
+                    .id("M28.01")
+                    .gears(5)
+                    .attribute("http://ehony.org/", "maintenance-year", "2014")
+                .end();
+        root = new Node().id("root");
+        a = root.child("a");
+        a1 = a.child("a1");
+        a2 = a.child("a2");
+        b = root.child("b");
+        b1 = b.child("b1");
+        b11 = b1.child("b11");
+    }
+
+    private static List<Tag<?>> find(String query, Tag<?> context) {
+        return TagQuery.compile(query).findAll(context);
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        assertEquals(singletonList(car.engine), find("car > engine[gears=5]", car));
+        assertEquals(emptyList(), find("car > engine[gears=6]", car));
+        assertEquals(singletonList(car.engine), find("engine[gears!=6]", car));
+        assertEquals(singletonList(car.engine), find("//engine[@{http://ehony.org/}maintenance-year]", car));
+        assertEquals(singletonList(car.engine), find("*[@{http://ehony.org/}maintenance-year='2014']", car));
+        assertEquals(emptyList(), find("engine[@maintenance-year]", car));
+        assertEquals(singletonList(car), find("car[brand=Porsche]", car));
+        assertEquals(emptyList(), find("car[missing!=1]", car));
+    }
+
+    @Test
+    public void testCombinators() throws Exception {
+        assertEquals(asList(root, a, a1, a2, b, b1, b11), find("*", root));
+        assertEquals(asList(a1, a2, b1, b11), find("node node node", root));
+        assertEquals(asList(a1, a2, b1), find("/node/node/node", root));
+        assertEquals(asList(b1, b11), find("#b node", root));
+        assertEquals(singletonList(b11), find("#b > * > *", root));
+        assertEquals(singletonList(b11), find("#b//#b11", root));
+        assertEquals(emptyList(), find("/#b", root));
+        assertEquals(singletonList(b), find("/#b", b));
+        assertEquals(asList(b1, b11), find("node", b1));
+    }
+
+    @Test
+    public void testIdLookup() throws Exception {
+        TagQuery query = TagQuery.compile("node > node[id=x]");
+        a2.setId("x");
+        b11.setId("x");
+        root.setId("x");
+        assertEquals(asList(a2, b11), query.findAll(root));
+        assertEquals(Optional.of(a2), query.findFirst(root));
+        assertEquals(singletonList(b11), query.findAll(b));
+        assertEquals(singletonList(b11), query.findAll(b1));
+        assertEquals(emptyList(), query.findAll(b11));
+        assertTrue(query.matches(root, a2));
+        assertFalse(query.matches(b, a2));
+    }
+
+    @Test
+    public void testFindFirst() throws Exception {
+        assertEquals(Optional.of(a1), TagQuery.compile("node node node").findFirst(root));
+        assertEquals(Optional.empty(), TagQuery.compile("engine").findFirst(root));
+        assertEquals(Optional.of(car.engine), TagQuery.compile("/car/engine").findFirst(car));
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        for (String query : asList("", "a >", "a[", "a[b", "a[b=]", "a[{ns b]", "a[b='c]", "a!b", ">a")) {
+            try {
+                TagQuery.compile(query);
+                fail(query);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        assertEquals("a > b", TagQuery.compile("a > b").toString());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SpringTagContextTest
+{
+
+    private StaticApplicationContext spring;
+    private SpringTagContext context;
+
+    @Before
+    public void before() throws Exception {
+        spring = new StaticApplicationContext();
+        spring.getBeanFactory().registerSingleton("name", "Test");
+        spring.refresh();
+        context = new SpringTagContext(spring);
+    }
+
+    @Test
+    public void testFindBean() throws Exception {
+        assertEquals(Optional.of("Test"), context.findBean("name", String.class));
+        assertEquals(Optional.of("Test"), context.findBean("name", null));
+        assertFalse(context.findBean("name", Integer.class).isPresent());
+        assertFalse(context.findBean("plugin", Object.class).isPresent());
+    }
+
+    @Test
+    public void testSingletonCache() throws Exception {
+        spring.registerPrototype("list", ArrayList.class);
+        spring.addApplicationListener(context);
+        Object name = context.getBean("name", String.class);
+        assertSame(name, context.getBean("name", String.class));
+        assertNotSame(context.getBean("list", List.class), context.getBean("list", List.class));
+
+        spring.getDefaultListableBeanFactory().destroySingleton("name");
+        spring.getBeanFactory().registerSingleton("name", "Other");
+        assertSame(name, context.getBean("name", String.class));
+        spring.publishEvent(new ContextRefreshedEvent(spring));
+        assertEquals("Other", context.getBean("name", String.class));
+    }
+
+    @Test
+    public void testRegisteredAfterMiss() throws Exception {
+        assertFalse(context.findBean("plugin", Integer.class).isPresent());
+        assertFalse(context.findBean("plugin", Integer.class).isPresent());
+        spring.getBeanFactory().registerSingleton("plugin", 42);
+        assertEquals(Optional.of(42), context.findBean("plugin", Integer.class));
+    }
+
+    @Test
+    public void testReplacedAfterMiss() throws Exception {
+        assertFalse(context.findBean("plugin", List.class).isPresent());
+        // Count of definitions and singletons stays the same.
+        spring.getDefaultListableBeanFactory().destroySingleton("name");
+        spring.registerPrototype("plugin", ArrayList.class);
+        assertTrue(context.findBean("plugin", List.class).isPresent());
+        assertFalse(context.findBean("plugin", String.class).isPresent());
+        assertFalse(context.findBean("name", String.class).isPresent());
+    }
+}
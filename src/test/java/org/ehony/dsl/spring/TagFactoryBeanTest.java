@@ -0,0 +1,92 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.spring;
+
+import org.ehony.dsl.api.ContainerTag;
+import org.ehony.dsl.api.Tag;
+import org.example.Car;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import javax.xml.bind.UnmarshalException;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import static org.junit.Assert.*;
+
+public class TagFactoryBeanTest
+{
+
+    private static Element parse(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes("utf-8"))).getDocumentElement();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TagFactoryBean create(String xml, Class<?> type) throws Exception {
+        TagFactoryBean factory = new TagFactoryBean(parse(xml), (Class<Tag>) type, "org.example");
+        factory.setLazy(true);
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    @Test
+    public void testLazyClassTag() throws Exception {
+        TagFactoryBean factory = create("<super-car xmlns='http://example.org/' id='my-car'><engine gears='5'/></super-car>", Car.class);
+        Car car = (Car) factory.getObject();
+        assertEquals("my-car", car.getId());
+        assertSame(car.engine, car.getChildren().get(0));
+        assertSame(car, factory.getObject());
+    }
+
+    @Test
+    public void testLazyInterfaceTag() throws Exception {
+        TagFactoryBean factory = create("<super-car xmlns='http://example.org/' id='my-car'><engine gears='5'/></super-car>", ContainerTag.class);
+        ContainerTag car = (ContainerTag) factory.getObject();
+        assertFalse(car instanceof Car);
+        assertEquals(1, car.getChildren().size());
+        assertNotNull(car.getContext());
+    }
+
+    @Test
+    public void testDeferredFailure() throws Exception {
+        TagFactoryBean factory = create("<unknown xmlns='http://example.org/'/>", ContainerTag.class);
+        ContainerTag car = (ContainerTag) factory.getObject();
+        try {
+            car.getChildren();
+            fail("Unmarshalling failure expected.");
+        } catch (UndeclaredThrowableException e) {
+            assertTrue(e.getCause() instanceof UnmarshalException);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLazyPrototype() throws Exception {
+        TagFactoryBean factory = new TagFactoryBean(parse("<super-car xmlns='http://example.org/'><engine gears='5'/></super-car>"), (Class<Tag>) (Class<?>) ContainerTag.class, "org.example");
+        factory.setLazy(true);
+        factory.setSingleton(false);
+        factory.afterPropertiesSet();
+        ContainerTag first = (ContainerTag) factory.getObject();
+        ContainerTag second = (ContainerTag) factory.getObject();
+        assertSame(first.getChildren().get(0), first.getChildren().get(0));
+        assertNotSame(first.getChildren().get(0), second.getChildren().get(0));
+    }
+
+    @Test
+    public void testLazyObjectMethods() throws Exception {
+        TagFactoryBean factory = create("<unknown xmlns='http://example.org/'/>", ContainerTag.class);
+        Object car = factory.getObject();
+        // Broken tag is not materialized.
+        assertTrue(car.equals(car));
+        assertFalse(car.equals(new Object()));
+        assertEquals(System.identityHashCode(car), car.hashCode());
+        assertTrue(car.toString().contains(ContainerTag.class.getName()));
+    }
+}
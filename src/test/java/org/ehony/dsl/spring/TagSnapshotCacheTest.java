@@ -0,0 +1,138 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.ehony.dsl.spring;
+
+import org.ehony.dsl.api.Tag;
+import org.ehony.dsl.binding.TagCodec;
+import org.example.Car;
+import org.example.Trailer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TagSnapshotCacheTest
+{
+
+    private static final String XML = "<super-car xmlns='http://example.org/' id='my-car' brand='Porsche'><engine gears='5'/></super-car>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path file;
+
+    @Before
+    public void before() throws Exception {
+        file = folder.getRoot().toPath().resolve("tags.snapshot");
+    }
+
+    private static Element parse(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes("utf-8"))).getDocumentElement();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Car create(Element node) throws Exception {
+        TagFactoryBean factory = new TagFactoryBean(node, (Class<Tag>) (Class<?>) Car.class, "org.example");
+        factory.setSnapshots(new TagSnapshotCache(file));
+        factory.afterPropertiesSet();
+        Car car = (Car) factory.getObject();
+        factory.getSnapshots().flush();
+        return car;
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        String key = TagSnapshotCache.getKey(parse(XML), Car.class, "org.example");
+        assertEquals(key, TagSnapshotCache.getKey(parse(XML.replace("id='my-car' brand='Porsche'", "brand='Porsche' id='my-car'")), Car.class, "org.example"));
+        assertFalse(key.equals(TagSnapshotCache.getKey(parse(XML.replace("gears='5'", "gears='6'")), Car.class, "org.example")));
+        assertFalse(key.equals(TagSnapshotCache.getKey(parse(XML), Car.class, "org.example.other")));
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        Element node = parse(XML);
+        Car parsed = create(node);
+        assertTrue(Files.size(file) > 0);
+
+        TagSnapshotCache cache = new TagSnapshotCache(file);
+        Car decoded = cache.get(TagSnapshotCache.getKey(node, Car.class, "org.example"), Car.class);
+        assertNotNull(decoded);
+        assertEquals(parsed.getId(), decoded.getId());
+        assertEquals(parsed.brand, decoded.brand);
+        assertSame(decoded.engine, decoded.getChildren().get(0));
+        assertEquals(Integer.valueOf(5), decoded.engine.gears);
+
+        Car cached = create(node);
+        assertSame(cached.engine, cached.getChildren().get(0));
+        assertNotNull(cached.getContext());
+    }
+
+    @Test
+    public void testCorruptedSnapshot() throws Exception {
+        Element node = parse(XML);
+        int length = new TagCodec().encode(create(node)).remaining();
+        byte[] bytes = Files.readAllBytes(file);
+        Arrays.fill(bytes, bytes.length - length, bytes.length, (byte) 0xFF);
+        Files.write(file, bytes);
+
+        TagSnapshotCache cache = new TagSnapshotCache(file);
+        String key = TagSnapshotCache.getKey(node, Car.class, "org.example");
+        assertNull(cache.get(key, Car.class));
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertNull(new TagSnapshotCache(file).get(key, Car.class));
+        assertEquals("my-car", create(node).getId());
+    }
+
+    @Test
+    public void testCorruptedIndex() throws Exception {
+        Element node = parse(XML);
+        create(node);
+        String key = TagSnapshotCache.getKey(node, Car.class, "org.example");
+        byte[] bytes = Files.readAllBytes(file);
+
+        // Entry count follows magic and version.
+        ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE);
+        Files.write(file, bytes);
+        assertNull(new TagSnapshotCache(file).get(key, Car.class));
+
+        // Offset and length of the only entry follow count and key.
+        ByteBuffer.wrap(bytes).putInt(8, 1).putLong(12 + 2 + key.length(), Integer.MAX_VALUE);
+        Files.write(file, bytes);
+        assertNull(new TagSnapshotCache(file).get(key, Car.class));
+
+        ByteBuffer.wrap(bytes).putLong(12 + 2 + key.length(), 0).putInt(12 + 2 + key.length() + 8, -1);
+        Files.write(file, bytes);
+        assertNull(new TagSnapshotCache(file).get(key, Car.class));
+        assertEquals("my-car", create(node).getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnsupportedMapping() throws Exception {
+        Element node = parse("<trailer xmlns='http://example.org/' id='my-trailer'><box/></trailer>");
+        TagFactoryBean factory = new TagFactoryBean(node, (Class<Tag>) (Class<?>) Trailer.class, "org.example");
+        factory.setSnapshots(new TagSnapshotCache(file));
+        factory.afterPropertiesSet();
+        Trailer trailer = (Trailer) factory.getObject();
+        assertEquals("my-trailer", trailer.getId());
+        assertEquals(1, trailer.cargo.size());
+        assertFalse(factory.getSnapshots().put("key", trailer));
+        factory.getSnapshots().flush();
+        assertFalse(Files.exists(file));
+    }
+}
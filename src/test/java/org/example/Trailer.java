@@ -0,0 +1,24 @@
+/*
+ * ┌──┐
+ * │  │
+ * │Eh│ony
+ * └──┘
+ */
+package org.example;
+
+import org.ehony.dsl.BaseTag;
+import org.ehony.dsl.api.ContainerTag;
+import org.w3c.dom.Element;
+
+import javax.xml.bind.annotation.XmlAnyElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+@XmlRootElement
+public class Trailer extends BaseTag<Trailer, ContainerTag>
+{
+
+    @XmlAnyElement
+    public List<Element> cargo = new ArrayList<>();
+}